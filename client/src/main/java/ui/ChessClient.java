@@ -166,7 +166,7 @@ public class ChessClient {
     private String showMoves(String algebraicPosition) throws ResponseException {
         int column = algebraicPosition.charAt(0) - 'a' + 1;
         int row = Character.getNumericValue(algebraicPosition.charAt(1));
-        ChessPosition position = new ChessPosition(row, column);
+        ChessPosition position = ChessPosition.of(row, column);
         webSocketFacade.showMoves(game, position);
         return "Showed moves";
     }
@@ -4,6 +4,7 @@ import chess.ChessGame;
 import chess.ChessMove;
 import chess.ChessPiece;
 import chess.ChessPosition;
+import chess.LegalMoveCache;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -14,6 +15,9 @@ import static ui.EscapeSequences.*;
 import static ui.EscapeSequences.BLACK_PAWN;
 
 public class PrintGame {
+    // Shared by every board printed, so highlighting moves in a position seen before is a lookup
+    private static final LegalMoveCache LEGAL_MOVES = new LegalMoveCache(1024);
+
     private final ChessGame game;
     private AlternatingShade currentShade ;
 
@@ -45,7 +49,7 @@ public class PrintGame {
 
         Collection<ChessPosition> highlightMovePositions = new ArrayList<>();
         if (highlightPosition != null) {
-            for (ChessMove move : game.validMoves(highlightPosition)) {
+            for (ChessMove move : LEGAL_MOVES.validMoves(game, highlightPosition)) {
                 highlightMovePositions.add(move.getEndPosition());
             }
         }
@@ -59,7 +63,7 @@ public class PrintGame {
             String rankIndex = ranks[(incrementBy * row) - (incrementBy * start)];
             stringBoard.append(getNextGrey()).append(SET_TEXT_COLOR_BLACK).append(rankIndex);
             for (int col = end; (incrementBy * col) - (incrementBy * start) >= 0; col -= incrementBy) {
-                ChessPosition position = new ChessPosition(row, col);
+                ChessPosition position = ChessPosition.of(row, col);
                 String color;
                 if (position.equals(highlightPosition)) {
                     color = getNextYellowColor();
@@ -0,0 +1,15 @@
+package dataaccess;
+
+import chess.engine.GameAnalyzer;
+import model.GameData;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AnalysisDAO {
+    void createAnalysis(int gameID, List<GameAnalyzer.MoveAnalysis> analysis) throws DataAccessException;
+    List<GameAnalyzer.MoveAnalysis> retrieveAnalysis(int gameID) throws DataAccessException;
+    // Finished games with no analysis yet and an ID above afterGameID, in ID order
+    Collection<GameData> retrieveUnanalyzedGames(int afterGameID, int limit) throws DataAccessException;
+    void deleteAllAnalyses() throws DataAccessException;
+}
@@ -10,6 +10,8 @@ public interface GameDAO {
     GameData retrieveGame(int gameID) throws DataAccessException;
     Collection<GameData> retrieveAllGames() throws DataAccessException;
     GameData updateGame(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame gameObject) throws DataAccessException;
+    // Saves a new state of a game only if it is still stored as it was read; null if it has changed since
+    GameData updateGameIfUnchanged(GameData expected, ChessGame gameObject) throws DataAccessException;
 //    void deleteGame(int gameID) throws DataAccessException;
     void deleteAllGames() throws DataAccessException;
 }
@@ -0,0 +1,44 @@
+package dataaccess;
+
+import chess.engine.GameAnalyzer;
+import model.GameData;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MemoryAnalysisDAO implements AnalysisDAO {
+    private final GameDAO gameDAO;
+    final private ConcurrentHashMap<Integer, List<GameAnalyzer.MoveAnalysis>> analyses = new ConcurrentHashMap<>();
+
+    public MemoryAnalysisDAO(GameDAO gameDAO) {
+        this.gameDAO = gameDAO;
+    }
+
+    @Override
+    public void createAnalysis(int gameID, List<GameAnalyzer.MoveAnalysis> analysis) throws DataAccessException {
+        analyses.put(gameID, List.copyOf(analysis));
+    }
+
+    @Override
+    public List<GameAnalyzer.MoveAnalysis> retrieveAnalysis(int gameID) throws DataAccessException {
+        return analyses.get(gameID);
+    }
+
+    @Override
+    public Collection<GameData> retrieveUnanalyzedGames(int afterGameID, int limit) throws DataAccessException {
+        return gameDAO.retrieveAllGames().stream()
+                .filter(game -> game.gameID() > afterGameID
+                        && !game.game().inProgress
+                        && !analyses.containsKey(game.gameID()))
+                .sorted(Comparator.comparingInt(GameData::gameID))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public void deleteAllAnalyses() throws DataAccessException {
+        analyses.clear();
+    }
+}
@@ -4,4 +4,5 @@ public class MemoryDataAccess {
     public final AuthDAO authDAO = new MemoryAuthDAO();
     public final GameDAO gameDAO = new MemoryGameDAO();
     public final UserDAO userDAO = new MemoryUserDAO();
+    public final AnalysisDAO analysisDAO = new MemoryAnalysisDAO(gameDAO);
 }
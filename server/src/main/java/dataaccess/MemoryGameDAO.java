@@ -11,14 +11,14 @@ public class MemoryGameDAO implements GameDAO {
     final private HashMap<Integer, GameData> games = new HashMap<>();
 
     @Override
-    public GameData createGame(String whiteUsername, String blackUsername, String gameName, ChessGame gameObject) throws DataAccessException {
+    public synchronized GameData createGame(String whiteUsername, String blackUsername, String gameName, ChessGame gameObject) throws DataAccessException {
         GameData game = new GameData(nextID, whiteUsername, blackUsername, gameName, gameObject);
         games.put(nextID++, game);
         return game;
     }
 
     @Override
-    public GameData retrieveGame(int gameID) throws DataAccessException {
+    public synchronized GameData retrieveGame(int gameID) throws DataAccessException {
         return games.get(gameID);
     }
 
@@ -27,7 +27,7 @@ public class MemoryGameDAO implements GameDAO {
     }
 
     @Override
-    public GameData updateGame(
+    public synchronized GameData updateGame(
             int gameID,
             String whiteUsername,
             String blackUsername,
@@ -38,6 +38,15 @@ public class MemoryGameDAO implements GameDAO {
         return newGame;
     }
 
+    @Override
+    public synchronized GameData updateGameIfUnchanged(GameData expected, ChessGame gameObject) throws DataAccessException {
+        // Every save stores a new record, so the one read is only still stored if nothing was saved since
+        if (games.get(expected.gameID()) != expected) {
+            return null;
+        }
+        return updateGame(expected.gameID(), expected.whiteUsername(), expected.blackUsername(), expected.gameName(), gameObject);
+    }
+
     @Override
     public void deleteAllGames() throws DataAccessException {
         games.clear();
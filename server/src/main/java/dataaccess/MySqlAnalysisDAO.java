@@ -0,0 +1,88 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.engine.GameAnalyzer;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import model.GameData;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class MySqlAnalysisDAO implements AnalysisDAO {
+    private static final TypeToken<List<GameAnalyzer.MoveAnalysis>> ANALYSIS_TYPE = new TypeToken<>() {};
+
+    @Override
+    public void createAnalysis(int gameID, List<GameAnalyzer.MoveAnalysis> analysis) throws DataAccessException {
+        // Analyzing a game again replaces what was stored for it
+        String statement = "REPLACE INTO analyses (gameID, analysis) VALUES (?, ?)";
+        MySqlDataAccess.executeUpdate(statement, gameID, new Gson().toJson(analysis));
+    }
+
+    @Override
+    public List<GameAnalyzer.MoveAnalysis> retrieveAnalysis(int gameID) throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            String statement = "SELECT analysis FROM analyses WHERE gameID=?";
+            try (PreparedStatement ps = conn.prepareStatement(statement)) {
+                ps.setInt(1, gameID);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        return new Gson().fromJson(rs.getString("analysis"), ANALYSIS_TYPE);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw new DataAccessException(String.format("Unable to read data: %s", e.getMessage()));
+        }
+        return null;
+    }
+
+    @Override
+    public Collection<GameData> retrieveUnanalyzedGames(int afterGameID, int limit) throws DataAccessException {
+        Collection<GameData> result = new ArrayList<GameData>();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            String statement = """
+                    SELECT g.gameID, g.whiteUsername, g.blackUsername, g.gameName, g.game FROM games g
+                    LEFT JOIN analyses a ON a.gameID = g.gameID
+                    WHERE g.gameID > ? AND a.gameID IS NULL AND JSON_EXTRACT(g.game, '$.inProgress') = CAST('false' AS JSON)
+                    ORDER BY g.gameID LIMIT ?
+                    """;
+            try (PreparedStatement ps = conn.prepareStatement(statement)) {
+                ps.setInt(1, afterGameID);
+                ps.setInt(2, limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        int gameID = rs.getInt("gameID");
+                        String whiteUsername = rs.getString("whiteUsername");
+                        String blackUsername = rs.getString("blackUsername");
+                        String gameName = rs.getString("gameName");
+                        ChessGame gameObject = new Gson().fromJson(rs.getString("game"), ChessGame.class);
+                        result.add(new GameData(gameID, whiteUsername, blackUsername, gameName, gameObject));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw new DataAccessException(String.format("Unable to read data: %s", e.getMessage()));
+        }
+        return result;
+    }
+
+    @Override
+    public void deleteAllAnalyses() throws DataAccessException {
+        String statement = "TRUNCATE analyses";
+        MySqlDataAccess.executeUpdate(statement);
+    }
+
+    public final String createStatement =
+            """
+            CREATE TABLE IF NOT EXISTS analyses (
+              `gameID` int NOT NULL,
+              `analysis` MEDIUMTEXT NOT NULL,
+              PRIMARY KEY (`gameID`)
+            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+            """;
+}
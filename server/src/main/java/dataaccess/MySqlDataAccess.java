@@ -11,6 +11,7 @@ public class MySqlDataAccess {
     public final MySqlAuthDAO authDAO = new MySqlAuthDAO();
     public final MySqlGameDAO gameDAO = new MySqlGameDAO();
     public final MySqlUserDAO userDAO = new MySqlUserDAO();
+    public final MySqlAnalysisDAO analysisDAO = new MySqlAnalysisDAO();
 
     public MySqlDataAccess() throws DataAccessException {
         configureDatabase();
@@ -49,7 +50,8 @@ public class MySqlDataAccess {
     private void configureDatabase() throws DataAccessException {
         DatabaseManager.createDatabase();
         try (Connection conn = DatabaseManager.getConnection()) {
-            for (String statement : new String[] {authDAO.createStatement, gameDAO.createStatement, userDAO.createStatement}) {
+            for (String statement : new String[] {authDAO.createStatement, gameDAO.createStatement, userDAO.createStatement,
+                    analysisDAO.createStatement}) {
                 try (PreparedStatement preparedStatement = conn.prepareStatement(statement)) {
                     preparedStatement.executeUpdate();
                 }
@@ -9,6 +9,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Objects;
 
 public class MySqlGameDAO implements GameDAO {
 
@@ -90,6 +91,38 @@ public class MySqlGameDAO implements GameDAO {
         }
     }
 
+    @Override
+    public GameData updateGameIfUnchanged(GameData expected, ChessGame gameObject) throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            // Locks the row until the transaction ends, so nothing can be saved between the check and the update
+            String select = "SELECT whiteUsername, blackUsername, game FROM games WHERE gameID=? FOR UPDATE";
+            try (PreparedStatement ps = conn.prepareStatement(select)) {
+                ps.setInt(1, expected.gameID());
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()
+                            || !Objects.equals(rs.getString("whiteUsername"), expected.whiteUsername())
+                            || !Objects.equals(rs.getString("blackUsername"), expected.blackUsername())
+                            || !Objects.equals(new Gson().fromJson(rs.getString("game"), ChessGame.class), expected.game())) {
+                        conn.rollback();
+                        return null;
+                    }
+                }
+            }
+            String update = "UPDATE games SET game = ? WHERE gameID = ?";
+            try (PreparedStatement ps = conn.prepareStatement(update)) {
+                ps.setString(1, new Gson().toJson(gameObject));
+                ps.setInt(2, expected.gameID());
+                ps.executeUpdate();
+            }
+            conn.commit();
+            return new GameData(expected.gameID(), expected.whiteUsername(), expected.blackUsername(),
+                    expected.gameName(), gameObject);
+        } catch (Exception e) {
+            throw new DataAccessException(String.format("Unable to read data: %s", e.getMessage()));
+        }
+    }
+
     @Override
     public void deleteAllGames() throws DataAccessException {
         String statement = "TRUNCATE games";
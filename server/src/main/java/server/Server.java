@@ -1,5 +1,7 @@
 package server;
 
+import chess.engine.OpeningBook;
+import chess.engine.Tablebase;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import dataaccess.*;
@@ -8,11 +10,16 @@ import server.websocket.WebSocketHandler;
 import spark.*;
 import service.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 public class Server {
     private static final Gson SERIALIZER = new Gson();
     private DatabaseService databaseService;
     private GameService gameService;
     private UserService userService;
+    private BotService botService;
+    private AnalysisService analysisService;
 
     public int run(int desiredPort) {
         Spark.port(desiredPort);
@@ -23,10 +30,14 @@ public class Server {
 
         try {
             MySqlDataAccess dataAccess = new MySqlDataAccess();
-            databaseService = new DatabaseService(dataAccess.authDAO, dataAccess.gameDAO, dataAccess.userDAO);
+            databaseService = new DatabaseService(dataAccess.authDAO, dataAccess.gameDAO, dataAccess.userDAO,
+                    dataAccess.analysisDAO);
             gameService = new GameService(dataAccess.authDAO, dataAccess.gameDAO);
             userService = new UserService(dataAccess.authDAO, dataAccess.userDAO);
-            webSocketHandler = new server.websocket.WebSocketHandler(dataAccess.authDAO, dataAccess.gameDAO);
+            botService = createBotService(dataAccess.gameDAO);
+            webSocketHandler = new server.websocket.WebSocketHandler(dataAccess.authDAO, dataAccess.gameDAO, botService);
+            // Finished games are analyzed only while no bot is waiting to move
+            analysisService = new AnalysisService(dataAccess.analysisDAO, () -> botService.waitingGames() > 0);
         } catch (Throwable e) {
             System.out.printf("Unable to start server: %s%n", e.getMessage());
             return -1;
@@ -42,20 +53,46 @@ public class Server {
         Spark.get("/game", this::listGames);
         Spark.post("/game", this::createGame);
         Spark.put("/game", this::joinGame);
+        Spark.put("/game/bot", this::addBot);
         Spark.exception(ResponseException.class, this::exceptionHandler);
 
         //This line initializes the server and can be removed once you have a functioning endpoint 
         Spark.init();
 
         Spark.awaitInitialization();
+        analysisService.start();
         return Spark.port();
     }
 
     public void stop() {
+        if (botService != null) {
+            botService.shutdown();
+        }
+        if (analysisService != null) {
+            analysisService.shutdown();
+        }
         Spark.stop();
         Spark.awaitStop();
     }
 
+    /*
+     * Bots play from an opening book and endgame tablebases when the chess.book
+     * and chess.tablebases system properties point at them. The book may be any
+     * standard Polyglot book, since OpeningBook keys positions the Polyglot way.
+     */
+    private static BotService createBotService(GameDAO gameDAO) throws IOException {
+        BotService bots = new BotService(gameDAO);
+        String book = System.getProperty("chess.book");
+        if (book != null) {
+            bots.setOpeningBook(OpeningBook.open(Path.of(book)));
+        }
+        String tablebases = System.getProperty("chess.tablebases");
+        if (tablebases != null) {
+            bots.setTablebase(Tablebase.open(Path.of(tablebases)));
+        }
+        return bots;
+    }
+
     private void exceptionHandler(ResponseException ex, Request req, Response res) {
         res.status(ex.statusCode());
         res.body(ex.toJson());
@@ -138,4 +175,21 @@ public class Server {
             throw new ResponseException(400, "Error: Bad Request");
         }
     }
+
+    private Object addBot(Request req, Response res) throws ResponseException {
+        try {
+            String authToken = req.headers("authorization");
+            JoinGameRequest joinGameRequest = SERIALIZER.fromJson(req.body(), JoinGameRequest.class);
+            joinGameRequest.setAuthToken(authToken);
+            joinGameRequest.validate();
+            gameService.addBot(joinGameRequest);
+            // The bot has joined either way; connecting to the game asks it to move again
+            if (!botService.requestMove(joinGameRequest.getGameID())) {
+                throw new ResponseException(503, "Error: bot is busy; connect to the game to have it move");
+            }
+            return "";
+        } catch (JsonSyntaxException e) {
+            throw new ResponseException(400, "Error: Bad Request");
+        }
+    }
 }
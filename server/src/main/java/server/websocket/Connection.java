@@ -17,7 +17,15 @@ public class Connection {
     }
 
     public void send(String msg) throws IOException {
-        session.getRemote().sendString(msg);
+        send(session, msg);
+    }
+
+    // Bot moves are sent from bot worker threads, so sends to one session must not overlap,
+    // including sends to sessions that have no connection yet
+    public static void send(Session session, String msg) throws IOException {
+        synchronized (session) {
+            session.getRemote().sendString(msg);
+        }
     }
 
 
@@ -1,7 +1,9 @@
 package server.websocket;
 
 import chess.ChessGame;
+import chess.ChessMove;
 import chess.InvalidMoveException;
+import chess.LegalMoveCache;
 import com.google.gson.Gson;
 import dataaccess.AuthDAO;
 import dataaccess.DataAccessException;
@@ -10,6 +12,7 @@ import model.GameData;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
+import service.BotService;
 import websocket.commands.LeaveUserGameCommand;
 import websocket.commands.MakeMoveUserGameCommand;
 import websocket.commands.UserGameCommand;
@@ -24,14 +27,20 @@ import java.util.Objects;
 
 @WebSocket
 public class WebSocketHandler {
+    // Positions whose moves are remembered across all games; most games pass through the same openings
+    private static final int LEGAL_MOVE_POSITIONS = 1 << 16;
 
     private final ConnectionManager connections = new ConnectionManager();
+    private final LegalMoveCache legalMoves = new LegalMoveCache(LEGAL_MOVE_POSITIONS);
     private final AuthDAO authDAO;
     private final GameDAO gameDAO;
+    private final BotService bots;
 
-    public WebSocketHandler(AuthDAO authDAO, GameDAO gameDAO) {
+    public WebSocketHandler(AuthDAO authDAO, GameDAO gameDAO, BotService bots) {
         this.authDAO = authDAO;
         this.gameDAO = gameDAO;
+        this.bots = bots;
+        bots.setListener(this::botMoved);
     }
 
     @OnWebSocketMessage
@@ -63,7 +72,7 @@ public class WebSocketHandler {
             ErrorServerMessage errorServerMessage = new ErrorServerMessage(
                     ServerMessage.ServerMessageType.ERROR,
                     String.format("Error: %s", e.getMessage()));
-            session.getRemote().sendString(errorServerMessage.toString());
+            Connection.send(session, errorServerMessage.toString());
         }
     }
 
@@ -78,11 +87,13 @@ public class WebSocketHandler {
 
         LoadGameServerMessage loadGameServerMessage = new LoadGameServerMessage(ServerMessage.ServerMessageType.LOAD_GAME, game.game());
         connections.sendMessage(username, gameId, loadGameServerMessage);
+
+        // A bot may have been seated to move before anyone was watching
+        requestBotMove(game);
     }
 
     private void makeMove(String username, GameData game, String role, String message) throws IOException {
         MakeMoveUserGameCommand makeMoveUserGameCommand = new Gson().fromJson(message, MakeMoveUserGameCommand.class);
-        int gameId = makeMoveUserGameCommand.getGameID();
 
         ChessGame.TeamColor color;
         switch (role) {
@@ -92,7 +103,7 @@ public class WebSocketHandler {
         }
 
         try {
-            if (color == game.game().getTeamTurn()) { game.game().makeMove(makeMoveUserGameCommand.getMove()); }
+            if (color == game.game().getTeamTurn()) { game.game().makeMove(makeMoveUserGameCommand.getMove(), legalMoves); }
             else { throw new IOException("It is not your turn"); }
             gameDAO.updateGame(
                     makeMoveUserGameCommand.getGameID(),
@@ -105,31 +116,57 @@ public class WebSocketHandler {
             throw new IOException(e.getMessage());
         }
 
+        announceMove(username, game, makeMoveUserGameCommand.getMove());
+        if (!game.game().inProgress) {
+            bots.forgetGame(game.gameID());
+        }
+        requestBotMove(game);
+    }
+
+    // Called on a bot worker thread, never one of ours
+    private void botMoved(GameData game, ChessMove move) {
+        try {
+            announceMove(BotService.USERNAME, game, move);
+        } catch (IOException e) {
+            System.out.printf("Unable to announce bot move in game %d: %s%n", game.gameID(), e.getMessage());
+        }
+    }
+
+    private void announceMove(String username, GameData game, ChessMove move) throws IOException {
+        int gameId = game.gameID();
         LoadGameServerMessage loadGameServerMessage = new LoadGameServerMessage(ServerMessage.ServerMessageType.LOAD_GAME, game.game());
         connections.broadcast("", gameId, loadGameServerMessage);
 
         NotificationServerMessage moveMessage = new NotificationServerMessage(
                 ServerMessage.ServerMessageType.NOTIFICATION,
-                String.format("%s made move %s", username, makeMoveUserGameCommand.getMove().toAlgebraicNotation()));
+                String.format("%s made move %s", username, move.toAlgebraicNotation()));
         connections.broadcast(username, gameId, moveMessage);
 
-        String endMessage = null;
-        if (game.game().isInCheckmate(game.game().getTeamTurn())) { endMessage = "Checkmate!"; }
-        if (game.game().isInStalemate(game.game().getTeamTurn())) { endMessage = "Stalemate!"; }
+        String statusMessage = switch (game.game().getGameStatus()) {
+            case CHECKMATE -> "Checkmate!";
+            case STALEMATE -> "Stalemate!";
+            case THREEFOLD_REPETITION -> "Draw by threefold repetition!";
+            case FIFTY_MOVE_RULE -> "Draw by the fifty-move rule!";
+            case CHECK -> "Check!";
+            case NORMAL -> null;
+        };
 
-        if (endMessage != null ){
-            game.game().setFinished();
+        if (statusMessage != null) {
             NotificationServerMessage checkMessage = new NotificationServerMessage(
                     ServerMessage.ServerMessageType.NOTIFICATION,
-                    endMessage);
-            connections.broadcast("", gameId, checkMessage);
-        } else if (game.game().isInCheck(game.game().getTeamTurn())) {
-            NotificationServerMessage checkMessage = new NotificationServerMessage(
-                    ServerMessage.ServerMessageType.NOTIFICATION,
-                    "Check!");
+                    statusMessage);
             connections.broadcast("", gameId, checkMessage);
         }
+    }
 
+    // The search runs on the bot service's workers, so this returns at once
+    private void requestBotMove(GameData game) throws IOException {
+        if (BotService.isBotToMove(game) && !bots.requestMove(game.gameID())) {
+            NotificationServerMessage busyMessage = new NotificationServerMessage(
+                    ServerMessage.ServerMessageType.NOTIFICATION,
+                    String.format("%s is too busy to move right now; reconnect to try again.", BotService.USERNAME));
+            connections.broadcast("", game.gameID(), busyMessage);
+        }
     }
 
     private void leave(String username, GameData game, String role, String message) throws IOException {
@@ -156,6 +193,9 @@ public class WebSocketHandler {
                         game.game()
                 );
             }
+            if (Objects.equals(role, "white") || Objects.equals(role, "black")) {
+                bots.forgetGame(gameId);
+            }
 
             NotificationServerMessage serverMessage = new NotificationServerMessage(
                     ServerMessage.ServerMessageType.NOTIFICATION,
@@ -184,6 +224,7 @@ public class WebSocketHandler {
                         game.gameName(),
                         game.game()
                 );
+                bots.forgetGame(gameId);
 
                 NotificationServerMessage serverMessage = new NotificationServerMessage(
                         ServerMessage.ServerMessageType.NOTIFICATION,
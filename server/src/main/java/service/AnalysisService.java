@@ -0,0 +1,169 @@
+package service;
+
+import chess.engine.GameAnalyzer;
+import chess.engine.SearchLimits;
+import chess.engine.TranspositionTable;
+import dataaccess.AnalysisDAO;
+import dataaccess.DataAccessException;
+import model.GameData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Analyzes finished games in the background (see GameAnalyzer) and stores a
+ * score and judgement for every move.
+ * <p>
+ * Once started, it looks for finished games without an analysis every few
+ * minutes and works through them in batches, several games at a time. Each
+ * game's analysis is stored as soon as it is done, so after a restart only the
+ * games not yet stored are analyzed. It stays out of the way of live games:
+ * its few workers run at the lowest priority, rest between games so they are
+ * only busy part of the time, and stop picking up games whenever the server
+ * says it is busy.
+ */
+public class AnalysisService {
+    public static final SearchLimits DEFAULT_LIMITS = SearchLimits.depth(10).withNodes(100_000);
+    public static final int DEFAULT_DUTY_PERCENT = 50;
+
+    private static final int BATCH_SIZE = 64;
+    private static final long POLL_MINUTES = 5;
+    private static final int TABLE_MEGABYTES = 16;
+
+    private final AnalysisDAO analysisDAO;
+    private final SearchLimits limits;
+    private final int dutyPercent;
+    private final BooleanSupplier busy;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService scheduler;
+    private final ThreadLocal<TranspositionTable> tables =
+            ThreadLocal.withInitial(() -> new TranspositionTable(TABLE_MEGABYTES));
+
+    /**
+     * Creates a service with a worker for every four cores, the default search
+     * limits, and workers busy half the time
+     *
+     * @param busy whether live games need the machine; checked before each game
+     */
+    public AnalysisService(AnalysisDAO analysisDAO, BooleanSupplier busy) {
+        this(analysisDAO, Math.max(1, Runtime.getRuntime().availableProcessors() / 4),
+                DEFAULT_DUTY_PERCENT, DEFAULT_LIMITS, busy);
+    }
+
+    /**
+     * @param analysisDAO where finished games are found and analyses stored
+     * @param workers     how many games to analyze at once
+     * @param dutyPercent how much of the time each worker may spend analyzing
+     * @param limits      how long to search each position
+     * @param busy        whether live games need the machine; checked before each game
+     */
+    public AnalysisService(AnalysisDAO analysisDAO, int workers, int dutyPercent, SearchLimits limits,
+                           BooleanSupplier busy) {
+        if (workers < 1 || dutyPercent < 1 || dutyPercent > 100) {
+            throw new IllegalArgumentException("Analysis needs a worker and a duty cycle from 1 to 100 percent");
+        }
+        this.analysisDAO = analysisDAO;
+        this.limits = limits;
+        this.dutyPercent = dutyPercent;
+        this.busy = busy;
+        this.workers = Executors.newFixedThreadPool(workers, threads("analysis-worker-"));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threads("analysis-scheduler-"));
+    }
+
+    /**
+     * Starts looking for finished games to analyze, now and every few minutes
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                analyzeFinishedGames();
+            } catch (DataAccessException | RuntimeException e) {
+                System.out.printf("Unable to analyze finished games: %s%n", e.getMessage());
+            }
+        }, 0, POLL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops looking for games. Analyses not yet stored are picked up again next
+     * time the service starts.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Analyzes every finished game without an analysis, stopping early if the
+     * server gets busy
+     *
+     * @return how many games were analyzed
+     * @throws DataAccessException if finished games cannot be looked up
+     */
+    public synchronized int analyzeFinishedGames() throws DataAccessException {
+        int analyzed = 0;
+        int after = 0;
+        while (!busy.getAsBoolean()) {
+            Collection<GameData> batch = analysisDAO.retrieveUnanalyzedGames(after, BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<Future<Boolean>> results = new ArrayList<>(batch.size());
+            for (GameData game : batch) {
+                results.add(workers.submit(() -> analyze(game)));
+                after = Math.max(after, game.gameID());
+            }
+            for (Future<Boolean> result : results) {
+                try {
+                    if (result.get()) {
+                        analyzed++;
+                    }
+                } catch (ExecutionException e) {
+                    System.out.printf("Unable to analyze a game: %s%n", e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return analyzed;
+                }
+            }
+        }
+        return analyzed;
+    }
+
+    // Runs on a worker; false if the game was left for later
+    private boolean analyze(GameData game) throws DataAccessException, InterruptedException {
+        if (busy.getAsBoolean()) {
+            return false;
+        }
+        long start = System.nanoTime();
+        List<GameAnalyzer.MoveAnalysis> analysis;
+        try {
+            analysis = new GameAnalyzer(limits, tables.get()).analyze(game.game());
+        } catch (IllegalArgumentException e) {
+            // The saved moves do not replay to the saved position; store it empty so it is not tried again
+            analysis = List.of();
+        }
+        analysisDAO.createAnalysis(game.gameID(), analysis);
+        long elapsed = System.nanoTime() - start;
+        TimeUnit.NANOSECONDS.sleep(elapsed * (100 - dutyPercent) / dutyPercent);
+        return true;
+    }
+
+    private static ThreadFactory threads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,275 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.engine.OpeningBook;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.Tablebase;
+import chess.engine.TranspositionTable;
+import com.google.gson.Gson;
+import dataaccess.DataAccessException;
+import dataaccess.GameDAO;
+import model.GameData;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays the moves of bot players: games where {@link #USERNAME} sits as white
+ * or black. When it may be a bot's turn, call {@link #requestMove}; the move is
+ * searched for on this service's own worker threads, saved, and handed to the
+ * {@link Listener} so it can be announced.
+ * <p>
+ * Workers are fewer than the machine's cores and run below normal priority, so
+ * searches never hold up the threads serving human players. A game has at most
+ * one request waiting or running, and requests are served in the order they
+ * arrive, so under load every game gets its turn before any game gets two.
+ * Each game has a clock: a move may use a share of the time left on it, less
+ * when many games are waiting, and the time used is taken off it.
+ */
+public class BotService {
+    /**
+     * The username bots play under. Nobody can register it.
+     */
+    public static final String USERNAME = "chessbot";
+
+    public static final long DEFAULT_BUDGET_MILLIS = 5 * 60 * 1000;
+    public static final long DEFAULT_INCREMENT_MILLIS = 2000;
+
+    private static final int MAX_WAITING_GAMES = 4096;
+    private static final int MOVES_TO_GO = 30;
+    private static final long MIN_MOVE_MILLIS = 20;
+    private static final long MAX_MOVE_MILLIS = 5000;
+    private static final int TABLE_MEGABYTES = 16;
+    private static final Gson GSON = new Gson();
+
+    /**
+     * Told about each move a bot makes, on the worker thread that made it
+     */
+    public interface Listener {
+        void botMoved(GameData game, ChessMove move);
+    }
+
+    private final GameDAO gameDAO;
+    private final int workers;
+    private final long budgetMillis;
+    private final long incrementMillis;
+    private final ThreadPoolExecutor executor;
+    private final Set<Integer> waiting = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<Integer, Long> clocks = new ConcurrentHashMap<>();
+    // Each worker keeps its own table from move to move, so it is never shared between searches
+    private final ThreadLocal<TranspositionTable> tables =
+            ThreadLocal.withInitial(() -> new TranspositionTable(TABLE_MEGABYTES));
+    private volatile Listener listener = (game, move) -> {};
+    private volatile OpeningBook book;
+    private volatile Tablebase tablebase;
+
+    /**
+     * Creates a service with one worker per core but one, and the default clock
+     */
+    public BotService(GameDAO gameDAO) {
+        this(gameDAO, Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+                DEFAULT_BUDGET_MILLIS, DEFAULT_INCREMENT_MILLIS);
+    }
+
+    /**
+     * @param gameDAO         where games are read and saved
+     * @param workers         how many searches may run at once
+     * @param budgetMillis    how much time a bot has for all its moves in a game
+     * @param incrementMillis how much time is added to a bot's clock after each move
+     */
+    public BotService(GameDAO gameDAO, int workers, long budgetMillis, long incrementMillis) {
+        if (workers < 1 || budgetMillis < 1 || incrementMillis < 0) {
+            throw new IllegalArgumentException("Bots need at least one worker and some time");
+        }
+        this.gameDAO = gameDAO;
+        this.workers = workers;
+        this.budgetMillis = budgetMillis;
+        this.incrementMillis = incrementMillis;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAX_WAITING_GAMES), runnable -> {
+            Thread thread = new Thread(runnable, "bot-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = Objects.requireNonNull(listener);
+    }
+
+    /**
+     * @param book where bots look for their opening moves, or null to always search
+     */
+    public void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * @param tablebase where bots look up endgames, or null to always search
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    public static boolean isBot(String username) {
+        return USERNAME.equals(username);
+    }
+
+    /**
+     * @return true if a bot is seated on the side to move in a game still being played
+     */
+    public static boolean isBotToMove(GameData game) {
+        ChessGame chess = game.game();
+        if (chess == null || !chess.inProgress) {
+            return false;
+        }
+        return isBot(chess.getTeamTurn() == ChessGame.TeamColor.WHITE ? game.whiteUsername() : game.blackUsername());
+    }
+
+    /**
+     * Has a bot move in a game if it is a bot's turn there. Returns at once; the
+     * move is made later on a worker thread. Asking again before it is made does
+     * nothing.
+     *
+     * @param gameID the game
+     * @return false if too many games are already waiting for a bot, so the move will not be made
+     */
+    public boolean requestMove(int gameID) {
+        if (!waiting.add(gameID)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> play(gameID));
+            return true;
+        } catch (RejectedExecutionException e) {
+            waiting.remove(gameID);
+            return false;
+        }
+    }
+
+    /**
+     * Forgets a game's clock. Call when a game ends or a player leaves it, however
+     * that happens; a bot seated there again starts with a full clock.
+     *
+     * @param gameID the game
+     */
+    public void forgetGame(int gameID) {
+        clocks.remove(gameID);
+    }
+
+    /**
+     * @return the number of games waiting for or being given a bot move
+     */
+    public int waitingGames() {
+        return waiting.size();
+    }
+
+    /**
+     * Stops taking requests and drops games still waiting for a worker. Searches
+     * already running get up to their longest move time to finish and save their
+     * moves before they are interrupted.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        executor.getQueue().clear();
+        try {
+            if (!executor.awaitTermination(MAX_MOVE_MILLIS + 1000, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void play(int gameID) {
+        boolean again = false;
+        boolean released = false;
+        try {
+            GameData game = gameDAO.retrieveGame(gameID);
+            if (game == null || !isBotToMove(game)) {
+                if (game == null || game.game() == null || !game.game().inProgress) {
+                    forgetGame(gameID);
+                }
+                return;
+            }
+            ChessMove move = chooseMove(gameID, game.game());
+            if (move == null) {
+                return;
+            }
+
+            // Played on a copy, and saved only if the game was not resigned, left or moved in while the bot was thinking
+            ChessGame next = GSON.fromJson(GSON.toJson(game.game()), ChessGame.class);
+            next.makeMove(move);
+            // Once the move is saved the other player can reply, and their request must not be dropped
+            waiting.remove(gameID);
+            released = true;
+            GameData updated = gameDAO.updateGameIfUnchanged(game, next);
+            if (updated == null) {
+                return;
+            }
+            if (!updated.game().inProgress) {
+                forgetGame(gameID);
+            }
+            listener.botMoved(updated, move);
+            again = isBotToMove(updated);
+        } catch (DataAccessException | InvalidMoveException | RuntimeException e) {
+            System.out.printf("Bot could not move in game %d: %s%n", gameID, e.getMessage());
+        } finally {
+            if (!released) {
+                waiting.remove(gameID);
+            }
+        }
+        if (again) {
+            // A bot playing a bot goes to the back of the line, behind the games already waiting
+            requestMove(gameID);
+        }
+    }
+
+    private ChessMove chooseMove(int gameID, ChessGame game) {
+        OpeningBook book = this.book;
+        if (book != null) {
+            ChessMove move = book.pick(game, ThreadLocalRandom.current());
+            if (move != null) {
+                return move;
+            }
+        }
+        Tablebase tablebase = this.tablebase;
+        if (tablebase != null) {
+            ChessMove move = tablebase.bestMove(game);
+            if (move != null) {
+                return move;
+            }
+        }
+
+        long clock = clocks.computeIfAbsent(gameID, id -> budgetMillis);
+        long start = System.nanoTime();
+        SearchResult result = new Search(game, tables.get()).search(SearchLimits.time(moveMillis(clock)));
+        long used = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        clocks.computeIfPresent(gameID, (id, left) -> Math.max(0, left - used) + incrementMillis);
+        return result.bestMove();
+    }
+
+    // A share of the clock, cut down when more games are waiting than there are workers to serve them
+    private long moveMillis(long clock) {
+        long millis = Math.min(clock / MOVES_TO_GO + incrementMillis / 2, MAX_MOVE_MILLIS);
+        int load = waiting.size();
+        if (load > workers) {
+            millis = millis * workers / load;
+        }
+        return Math.max(millis, MIN_MOVE_MILLIS);
+    }
+}
@@ -1,5 +1,6 @@
 package service;
 
+import dataaccess.AnalysisDAO;
 import dataaccess.DataAccessException;
 import dataaccess.AuthDAO;
 import dataaccess.GameDAO;
@@ -10,11 +11,17 @@ public class DatabaseService {
     private final AuthDAO authDAO;
     private final GameDAO gameDAO;
     private final UserDAO userDAO;
+    private final AnalysisDAO analysisDAO;
 
     public DatabaseService(AuthDAO authDAO, GameDAO gameDAO, UserDAO userDAO) {
+        this(authDAO, gameDAO, userDAO, null);
+    }
+
+    public DatabaseService(AuthDAO authDAO, GameDAO gameDAO, UserDAO userDAO, AnalysisDAO analysisDAO) {
         this.authDAO = authDAO;
         this.gameDAO = gameDAO;
         this.userDAO = userDAO;
+        this.analysisDAO = analysisDAO;
     }
 
     public void clear() throws ResponseException {
@@ -22,6 +29,10 @@ public class DatabaseService {
             authDAO.deleteAllAuth();
             gameDAO.deleteAllGames();
             userDAO.deleteAllUsers();
+            // Game IDs start over, so analyses of the old games must go with them
+            if (analysisDAO != null) {
+                analysisDAO.deleteAllAnalyses();
+            }
         } catch (DataAccessException e) {
             throw new ResponseException(500, e.getMessage());
         }
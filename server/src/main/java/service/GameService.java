@@ -87,4 +87,34 @@ public class GameService {
             throw new ResponseException(500, e.getMessage());
         }
     }
+
+    /**
+     * Seats a bot (see BotService) as the requested color, using the same checks
+     * as joining the game yourself
+     */
+    public void addBot(JoinGameRequest joinGameRequest) throws ResponseException {
+        try {
+            AuthData auth;
+            try { auth = authDAO.retrieveAuth(joinGameRequest.getAuthToken()); }
+            catch (DataAccessException e) { auth = null; }
+            if (auth == null) { throw new ResponseException(401, "Error: unauthorized"); }
+
+            GameData game;
+            try { game = gameDAO.retrieveGame(joinGameRequest.getGameID()); }
+            catch (DataAccessException e) {game = null; }
+            if (game == null) { throw new ResponseException(400, "Error: bad request"); }
+
+            if ((joinGameRequest.getPlayerColor() == WHITE && game.whiteUsername() != null)
+                    || (joinGameRequest.getPlayerColor() == BLACK && game.blackUsername() != null)) {
+                throw new ResponseException(403, "Error: already taken");
+            }
+            gameDAO.updateGame(joinGameRequest.getGameID(),
+                    (joinGameRequest.getPlayerColor() == WHITE) ? BotService.USERNAME : game.whiteUsername(),
+                    (joinGameRequest.getPlayerColor() == BLACK) ? BotService.USERNAME : game.blackUsername(),
+                    game.gameName(),
+                    game.game());
+        } catch (DataAccessException e) {
+            throw new ResponseException(500, e.getMessage());
+        }
+    }
 }
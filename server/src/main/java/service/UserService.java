@@ -25,7 +25,7 @@ public class UserService {
             } catch (DataAccessException e) {
                 user = null;
             }
-            if (user != null) {
+            if (user != null || BotService.isBot(registerRequest.getUsername())) {
                 throw new ResponseException(403, "Error: already taken");
             }
             user = userDAO.createUser(
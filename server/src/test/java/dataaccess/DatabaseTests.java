@@ -17,6 +17,7 @@ public class DatabaseTests {
     private static AuthDAO authDAO;
     private static GameDAO gameDAO;
     private static UserDAO userDAO;
+    private static AnalysisDAO analysisDAO;
 
     @BeforeAll
     public static void setUp() {
@@ -25,6 +26,7 @@ public class DatabaseTests {
             authDAO = dataAccess.authDAO;
             gameDAO = dataAccess.gameDAO;
             userDAO = dataAccess.userDAO;
+            analysisDAO = dataAccess.analysisDAO;
         } catch (Throwable e) {
             System.out.printf("Unable to connect to database: %s%n", e.getMessage());
             throw new RuntimeException("Failed to set up tests.", e);
@@ -36,6 +38,7 @@ public class DatabaseTests {
         authDAO.deleteAllAuth();
         gameDAO.deleteAllGames();
         userDAO.deleteAllUsers();
+        analysisDAO.deleteAllAnalyses();
     }
 
     @Test
@@ -238,4 +241,25 @@ public class DatabaseTests {
             userDAO.retrieveUser("testUsername3");
         });
     }
+
+    @Test
+    public void testRetrieveUnanalyzedGamesSuccess() throws DataAccessException {
+        ChessGame finished = new ChessGame();
+        finished.setFinished();
+        gameDAO.createGame(null, null, "testGame1", new ChessGame());
+        gameDAO.createGame(null, null, "testGame2", finished);
+        gameDAO.createGame(null, null, "testGame3", finished);
+        analysisDAO.createAnalysis(3, List.of());
+
+        List<GameData> games = analysisDAO.retrieveUnanalyzedGames(0, 10).stream().toList();
+        assertEquals(1, games.size());
+        assertEquals("testGame2", games.getFirst().gameName());
+    }
+
+    @Test
+    public void testRetrieveUnanalyzedGamesFail() throws DataAccessException {
+        gameDAO.createGame(null, null, "testGame1", new ChessGame());
+
+        assertTrue(analysisDAO.retrieveUnanalyzedGames(0, 10).isEmpty());
+    }
 }
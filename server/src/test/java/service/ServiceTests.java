@@ -3,7 +3,11 @@ package service;
 import static org.junit.jupiter.api.Assertions.*;
 
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.engine.SearchLimits;
 import dataaccess.DataAccessException;
+import dataaccess.MemoryAnalysisDAO;
 import dataaccess.MemoryAuthDAO;
 import dataaccess.MemoryGameDAO;
 import dataaccess.MemoryUserDAO;
@@ -15,6 +19,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import server.ResponseException;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 public class ServiceTests {
     private MemoryAuthDAO authDAO;
     private MemoryGameDAO gameDAO;
@@ -162,6 +169,114 @@ public class ServiceTests {
         }
     }
 
+    @Test
+    public void testAddBotSuccess() throws ResponseException, DataAccessException {
+        RegisterRequest registerRequest = new RegisterRequest("email1", "password1", "user1");
+        RegisterResponse registerResponse = userService.register(registerRequest);
+        CreateGameRequest createGameRequest = new CreateGameRequest("game1", registerResponse.authToken());
+        CreateGameResponse createGameResponse = gameService.create(createGameRequest);
+        JoinGameRequest joinGameRequest = new JoinGameRequest(createGameResponse.gameID(),
+                ChessGame.TeamColor.BLACK,
+                registerResponse.authToken());
+        gameService.addBot(joinGameRequest);
+        GameData game = gameDAO.retrieveGame(createGameResponse.gameID());
+        assertEquals(BotService.USERNAME, game.blackUsername());
+        assertNull(game.whiteUsername());
+    }
+
+    @Test
+    public void testAddBotFail() throws ResponseException {
+        try {
+            RegisterRequest registerRequest = new RegisterRequest("email1", "password1", BotService.USERNAME);
+            userService.register(registerRequest);
+            fail("Registered as the bot");
+        } catch (ResponseException e) {
+            assertEquals(403, e.statusCode());
+        }
+        try {
+            RegisterRequest registerRequest = new RegisterRequest("email1", "password1", "user1");
+            RegisterResponse registerResponse = userService.register(registerRequest);
+            CreateGameRequest createGameRequest = new CreateGameRequest("game1", registerResponse.authToken());
+            CreateGameResponse createGameResponse = gameService.create(createGameRequest);
+            JoinGameRequest joinGameRequest = new JoinGameRequest(createGameResponse.gameID(),
+                    ChessGame.TeamColor.WHITE,
+                    registerResponse.authToken());
+            gameService.join(joinGameRequest);
+            gameService.addBot(joinGameRequest);
+            fail("Seated the bot in a taken seat");
+        } catch (ResponseException e) {
+            assertEquals(403, e.statusCode());
+        }
+    }
+
+    @Test
+    public void testBotReplies() throws Exception {
+        BotService botService = new BotService(gameDAO, 1, 2000, 0);
+        CountDownLatch moved = new CountDownLatch(1);
+        botService.setListener((game, move) -> moved.countDown());
+        try {
+            GameData game = gameDAO.createGame("user1", BotService.USERNAME, "game1", new ChessGame());
+            assertTrue(botService.requestMove(game.gameID()));
+            assertFalse(moved.await(200, TimeUnit.MILLISECONDS), "Bot moved for white");
+
+            game.game().makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+            gameDAO.updateGame(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(), game.game());
+            assertTrue(botService.requestMove(game.gameID()));
+            assertTrue(moved.await(10, TimeUnit.SECONDS), "Bot did not reply");
+
+            GameData replied = gameDAO.retrieveGame(game.gameID());
+            assertEquals(ChessGame.TeamColor.WHITE, replied.game().getTeamTurn());
+            assertEquals(0, botService.waitingGames());
+        } finally {
+            botService.shutdown();
+        }
+    }
+
+    @Test
+    public void testUpdateGameIfUnchanged() throws Exception {
+        GameData read = gameDAO.createGame("user1", BotService.USERNAME, "game1", new ChessGame());
+        ChessGame moved = new ChessGame();
+        moved.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+
+        // Resigned after the game was read, so the move must not be saved over it
+        ChessGame resigned = new ChessGame();
+        resigned.setFinished();
+        gameDAO.updateGame(read.gameID(), read.whiteUsername(), read.blackUsername(), read.gameName(), resigned);
+        assertNull(gameDAO.updateGameIfUnchanged(read, moved));
+        assertFalse(gameDAO.retrieveGame(read.gameID()).game().inProgress);
+
+        GameData current = gameDAO.retrieveGame(read.gameID());
+        assertNotNull(gameDAO.updateGameIfUnchanged(current, moved));
+        assertSame(moved, gameDAO.retrieveGame(read.gameID()).game());
+    }
+
+    @Test
+    public void testAnalyzeFinishedGames() throws Exception {
+        MemoryAnalysisDAO analysisDAO = new MemoryAnalysisDAO(gameDAO);
+        ChessGame finished = new ChessGame();
+        for (String move : new String[] {"f2f3", "e7e5", "g2g4", "d8h4"}) {
+            finished.makeMove(ChessMove.fromAlgebraicNotation(move));
+        }
+        GameData finishedGame = gameDAO.createGame("user1", "user2", "game1", finished);
+        GameData playingGame = gameDAO.createGame("user1", "user2", "game2", new ChessGame());
+
+        AnalysisService busyService = new AnalysisService(analysisDAO, 1, 100, SearchLimits.depth(3), () -> true);
+        AnalysisService analysisService = new AnalysisService(analysisDAO, 2, 100, SearchLimits.depth(3), () -> false);
+        try {
+            assertEquals(0, busyService.analyzeFinishedGames());
+            assertNull(analysisDAO.retrieveAnalysis(finishedGame.gameID()));
+
+            assertEquals(1, analysisService.analyzeFinishedGames());
+            assertEquals(4, analysisDAO.retrieveAnalysis(finishedGame.gameID()).size());
+            assertNull(analysisDAO.retrieveAnalysis(playingGame.gameID()));
+            // Games already analyzed are not analyzed again
+            assertEquals(0, analysisService.analyzeFinishedGames());
+        } finally {
+            busyService.shutdown();
+            analysisService.shutdown();
+        }
+    }
+
     @Test
     public void testClear() throws ResponseException, DataAccessException {
         RegisterRequest registerRequest = new RegisterRequest("email1", "password1", "user1");
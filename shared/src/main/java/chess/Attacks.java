@@ -0,0 +1,262 @@
+package chess;
+
+/**
+ * Precomputed attack tables, indexed by square (see {@link Bitboards}).
+ * <p>
+ * Knights, kings and pawns attack a fixed set of squares from each square, so
+ * those are looked up directly. Bishops, rooks and queens are stopped by the
+ * first piece in each direction, so their attacks depend on which of the squares
+ * they could reach are occupied. Those are looked up with magic bitboards: the
+ * relevant occupied squares are multiplied by a per-square "magic" number whose
+ * top bits then index a table of every possible answer. The tables are filled
+ * when the class loads by following rays from each square to their first blocker.
+ */
+public final class Attacks {
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+
+    /*
+     * Directions as {row step, column step}. The first four increase the square
+     * index, so their first blocker is the lowest set bit; the last four decrease it.
+     */
+    private static final int[][] DIRECTIONS = {
+            {1, 0}, {0, 1}, {1, 1}, {1, -1},
+            {-1, 0}, {0, -1}, {-1, -1}, {-1, 1}
+    };
+    private static final long[][] RAYS = new long[8][64];
+    private static final int[] ROOK_DIRECTIONS = {0, 1, 4, 5};
+    private static final int[] BISHOP_DIRECTIONS = {2, 3, 6, 7};
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    /*
+     * Magic numbers for each square. These were found by trying random numbers with
+     * few set bits until one mapped every occupancy of the square's relevant squares
+     * to a table slot without two different attack sets landing in the same slot.
+     */
+    private static final long[] ROOK_MAGIC_NUMBERS = {
+            0x0880004000801022L, 0x4440200440021000L, 0x088008D002200080L, 0x2500209000090004L,
+            0x1080040068008022L, 0x2200010842004410L, 0x1500008409000200L, 0x020000804029040AL,
+            0x4800800040008020L, 0x2082002200410082L, 0x0301001041082000L, 0xC041808008003000L,
+            0x00A4800400800800L, 0x0010800200800400L, 0x0184800100020080L, 0x0040800040802100L,
+            0x4000848004400060L, 0x8684444010002000L, 0x2006820010204200L, 0x0000090021001000L,
+            0x2009010008001004L, 0x900C008004020080L, 0x4108040001100288L, 0x5020220000804114L,
+            0x0080034240002000L, 0x03D0104040002000L, 0x4000100480200480L, 0x0040401200200A00L,
+            0x1032000600102008L, 0x0B820002801C0080L, 0x080A004200011488L, 0x0002908200140041L,
+            0x0080002000400040L, 0x10E0804000802003L, 0x0220100080802000L, 0x2204805004800801L,
+            0xC805004413000800L, 0x0050020080800400L, 0x0010800100800200L, 0x0004008502000864L,
+            0x0002008100420020L, 0x000150002008C000L, 0x090C410020090010L, 0x88422200400A0011L,
+            0x0008002040040400L, 0x0002001004020008L, 0x00008D2842040010L, 0x4204410080420004L,
+            0x0040800821004100L, 0x0200842000400480L, 0x0020620140B68200L, 0x80100008E1510100L,
+            0x0080800801040180L, 0x0803000804000300L, 0x0000080162300400L, 0x4002108041040200L,
+            0x8200102040800101L, 0x4602400016210481L, 0x08000A0040102082L, 0x0410210108100005L,
+            0x1011001008000423L, 0x11B1000400020801L, 0x0000012200881004L, 0x000008204401008AL
+    };
+    private static final long[] BISHOP_MAGIC_NUMBERS = {
+            0x08040104010A0A00L, 0x20080800C4004040L, 0x211008B0A1010804L, 0x0108061840900088L,
+            0x0210882000442020L, 0x3009045241040400L, 0xC010A80802100046L, 0x02018A0802010400L,
+            0x080010111001204AL, 0x0080041024005080L, 0x8140418103010080L, 0x0040640428800614L,
+            0x0000411041302012L, 0x0022008820880490L, 0x402000450C10C080L, 0x1454020704925000L,
+            0x4044000988080800L, 0x02A0000404041044L, 0x05020030102A0320L, 0x020420180A0060A8L,
+            0x8882004C02110000L, 0x0083000200514404L, 0x002C040209046208L, 0x2285180044008409L,
+            0x2002081020481020L, 0x1004020004884820L, 0x02180A000C4A0600L, 0x0480802008020020L,
+            0x0481020004008400L, 0x0470030001806104L, 0x4304084404210408L, 0x0002890040844802L,
+            0x2201200800105020L, 0x8803A49001201200L, 0x0400222408480800L, 0x0004208020080200L,
+            0x0008020010040900L, 0x1002004100021008L, 0x0002108A00010800L, 0x3050810100A04410L,
+            0x0024100808230400L, 0x10010410AA004420L, 0x01000C0048002401L, 0x0081011414041800L,
+            0x0400812012000100L, 0x0040182804204840L, 0x0144100220420A00L, 0x0410020216204040L,
+            0x8006010420050020L, 0x48120280D8082001L, 0x8000428048280000L, 0x1000230042020081L,
+            0x8244A21002120340L, 0x0100081001820880L, 0x0421044102340000L, 0x0004114802008404L,
+            0x2080842110022010L, 0x0020007309082000L, 0x1010200052080400L, 0x4201009200460800L,
+            0x00084040E014A401L, 0x2101004011240121L, 0x0520404204840080L, 0x0A4C907009012380L
+    };
+
+    private static final Magic[] ROOK_MAGICS = new Magic[64];
+    private static final Magic[] BISHOP_MAGICS = new Magic[64];
+
+    static {
+        int[][] knightSteps = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+        for (int square = 0; square < 64; square++) {
+            int row = Bitboards.row(square);
+            int col = Bitboards.column(square);
+
+            for (int[] step : knightSteps) {
+                KNIGHT[square] |= bitIfOnBoard(row + step[0], col + step[1]);
+            }
+            for (int[] direction : DIRECTIONS) {
+                KING[square] |= bitIfOnBoard(row + direction[0], col + direction[1]);
+            }
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] =
+                    bitIfOnBoard(row + 1, col - 1) | bitIfOnBoard(row + 1, col + 1);
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] =
+                    bitIfOnBoard(row - 1, col - 1) | bitIfOnBoard(row - 1, col + 1);
+
+            for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+                for (int r = row + DIRECTIONS[dir][0], c = col + DIRECTIONS[dir][1];
+                     r >= 1 && r <= 8 && c >= 1 && c <= 8;
+                     r += DIRECTIONS[dir][0], c += DIRECTIONS[dir][1]) {
+                    RAYS[dir][square] |= Bitboards.bit(Bitboards.square(r, c));
+                }
+            }
+        }
+
+        for (int square = 0; square < 64; square++) {
+            for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+                // The opposite direction is four entries along in DIRECTIONS
+                long line = RAYS[dir][square] | RAYS[(dir + 4) % 8][square] | Bitboards.bit(square);
+                long between = Bitboards.EMPTY;
+                for (long ray = RAYS[dir][square]; ray != 0; ) {
+                    int other = dir < 4 ? Long.numberOfTrailingZeros(ray) : 63 - Long.numberOfLeadingZeros(ray);
+                    BETWEEN[square][other] = between;
+                    LINE[square][other] = line;
+                    between |= Bitboards.bit(other);
+                    ray &= ~Bitboards.bit(other);
+                }
+            }
+        }
+
+        for (int square = 0; square < 64; square++) {
+            ROOK_MAGICS[square] = new Magic(square, ROOK_DIRECTIONS, ROOK_MAGIC_NUMBERS[square]);
+            BISHOP_MAGICS[square] = new Magic(square, BISHOP_DIRECTIONS, BISHOP_MAGIC_NUMBERS[square]);
+        }
+    }
+
+    private Attacks() {}
+
+    private static long bitIfOnBoard(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return Bitboards.EMPTY;
+        }
+        return Bitboards.bit(Bitboards.square(row, col));
+    }
+
+    /**
+     * @return the squares a knight on the given square attacks
+     */
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    /**
+     * @return the squares a king on the given square attacks
+     */
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color on the given square attacks
+     */
+    public static long pawn(ChessGame.TeamColor color, int square) {
+        return PAWN[color.ordinal()][square];
+    }
+
+    /**
+     * @return the squares a rook on the given square attacks, including the first
+     * occupied square in each direction
+     */
+    public static long rook(int square, long occupied) {
+        return ROOK_MAGICS[square].attacks(occupied);
+    }
+
+    /**
+     * @return the squares a bishop on the given square attacks, including the first
+     * occupied square in each direction
+     */
+    public static long bishop(int square, long occupied) {
+        return BISHOP_MAGICS[square].attacks(occupied);
+    }
+
+    /**
+     * @return the squares a queen on the given square attacks
+     */
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * @return the squares strictly between two squares that share a row, column or
+     * diagonal, or no squares if they do not
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * @return every square on the row, column or diagonal through two squares,
+     * edge to edge, or no squares if they do not share one
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    private static long ray(int dir, int square, long occupied) {
+        long attacks = RAYS[dir][square];
+        long blockers = attacks & occupied;
+        if (blockers != 0) {
+            int blocker = dir < 4 ? Long.numberOfTrailingZeros(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+            attacks ^= RAYS[dir][blocker];
+        }
+        return attacks;
+    }
+
+    private static long rayAttacks(int square, int[] directions, long occupied) {
+        long attacks = Bitboards.EMPTY;
+        for (int dir : directions) {
+            attacks |= ray(dir, square, occupied);
+        }
+        return attacks;
+    }
+
+    /**
+     * @return the squares whose occupancy can change a slider's attacks: its rays,
+     * minus the last square of each, since a piece there blocks nothing further
+     */
+    private static long relevantSquares(int square, int[] directions) {
+        long relevant = Bitboards.EMPTY;
+        for (int dir : directions) {
+            long ray = RAYS[dir][square];
+            if (ray != 0) {
+                int last = dir < 4 ? 63 - Long.numberOfLeadingZeros(ray) : Long.numberOfTrailingZeros(ray);
+                relevant |= ray & ~Bitboards.bit(last);
+            }
+        }
+        return relevant;
+    }
+
+    /**
+     * The lookup table for one slider on one square
+     */
+    private static final class Magic {
+        private final long mask;
+        private final long magic;
+        private final int shift;
+        private final long[] table;
+
+        private Magic(int square, int[] directions, long magic) {
+            this.mask = relevantSquares(square, directions);
+            this.magic = magic;
+            this.shift = 64 - Bitboards.count(mask);
+            this.table = new long[1 << Bitboards.count(mask)];
+
+            boolean[] filled = new boolean[table.length];
+            // Walk every subset of the mask
+            long subset = Bitboards.EMPTY;
+            do {
+                long attacks = rayAttacks(square, directions, subset);
+                int index = (int) ((subset * magic) >>> shift);
+                if (filled[index] && table[index] != attacks) {
+                    throw new IllegalStateException("Bad magic number for square " + square);
+                }
+                filled[index] = true;
+                table[index] = attacks;
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+        }
+
+        private long attacks(long occupied) {
+            return table[(int) (((occupied & mask) * magic) >>> shift)];
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package chess;
+
+/**
+ * Helpers for working with 64-bit bitboards.
+ * <p>
+ * Squares are numbered 0 (a1) through 63 (h8), rank by rank, so bit
+ * {@code (row - 1) * 8 + (column - 1)} of a bitboard stands for the
+ * {@link ChessPosition} with that row and column.
+ */
+public final class Bitboards {
+    public static final long EMPTY = 0L;
+
+    private Bitboards() {}
+
+    /**
+     * @return the square index of a 1-based row and column
+     */
+    public static int square(int row, int column) {
+        return (row - 1) * 8 + (column - 1);
+    }
+
+    /**
+     * @return the square index of a position
+     */
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @return the 1-based row of a square index
+     */
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the 1-based column of a square index
+     */
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    /**
+     * @return a bitboard with only the given square set
+     */
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * @return true if the given square is set in the bitboard
+     */
+    public static boolean contains(long bitboard, int square) {
+        return (bitboard & (1L << square)) != 0;
+    }
+
+    /**
+     * @return the lowest set square of a non-empty bitboard
+     */
+    public static int firstSquare(long bitboard) {
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    /**
+     * @return the number of set squares in the bitboard
+     */
+    public static int count(long bitboard) {
+        return Long.bitCount(bitboard);
+    }
+}
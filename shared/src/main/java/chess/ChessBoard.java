@@ -1,8 +1,6 @@
 package chess;
 
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -11,25 +9,99 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessBoard {
+    /**
+     * Square index used when a team has no king on the board
+     */
+    public static final int NO_SQUARE = -1;
+
+    /**
+     * Castling rights, as bits of the mask returned by getCastlingRights
+     */
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    private static final int ALL_CASTLING = 0xF;
+
+    /*
+     * The castling rights lost by moving a piece from, or capturing one on, each
+     * square: moving a king loses both of its team's rights, and a rook its side's.
+     */
+    private static final int[] CASTLING_LOST = new int[64];
+
+    static {
+        CASTLING_LOST[Bitboards.square(1, 5)] = WHITE_KINGSIDE | WHITE_QUEENSIDE;
+        CASTLING_LOST[Bitboards.square(1, 8)] = WHITE_KINGSIDE;
+        CASTLING_LOST[Bitboards.square(1, 1)] = WHITE_QUEENSIDE;
+        CASTLING_LOST[Bitboards.square(8, 5)] = BLACK_KINGSIDE | BLACK_QUEENSIDE;
+        CASTLING_LOST[Bitboards.square(8, 8)] = BLACK_KINGSIDE;
+        CASTLING_LOST[Bitboards.square(8, 1)] = BLACK_QUEENSIDE;
+    }
+
+    // Layout of state
+    private static final int EN_PASSANT_SHIFT = 4;
+    private static final int EN_PASSANT_MASK = 0x3F;
+    private static final int CLOCK_SHIFT = 10;
+
     private final ChessPiece[][] squares = new ChessPiece[8][8];
 
+    /*
+     * Everything about the position that cannot be seen from the pieces, in one
+     * word so a move can save and restore it at once. Bits 0-3 are the castling
+     * rights that have been lost. Bits 4-9 are the square a pawn can be captured
+     * en passant on, or 0 for none (no such square is ever a1). The bits from 10
+     * up are the number of half-moves since the last capture or pawn move.
+     *
+     * It is saved with the board, and is 0 for a board that has just been set up,
+     * which means no rights have been lost yet.
+     */
+    private int state;
+
+    /*
+     * Bitboard view of squares: one set per piece index (see ChessPiece.getIndex),
+     * one per team, and one for every occupied square. These are transient so a
+     * board is still stored and sent as its squares, and are rebuilt from squares
+     * the first time they are needed after deserializing.
+     */
+    private transient final long[] pieceBitboards = new long[12];
+    private transient final long[] teamBitboards = new long[2];
+    private transient long occupied;
+    private transient final int[] kingSquares = {NO_SQUARE, NO_SQUARE};
+    private transient boolean indexed;
+    // Zobrist key of the pieces on the board (see Zobrist), kept with the bitboards
+    private transient long key;
+    // Sums of the pieces' values on their squares (see PieceSquareTables), and the game phase
+    private transient int middlegameScore;
+    private transient int endgameScore;
+    private transient int phase;
+
+    // Moves that can be taken back with unmakeMove, most recent last
+    private transient UndoRecord[] undoStack = new UndoRecord[0];
+    private transient int undoCount;
+
     public ChessBoard() {}
 
     /**
-     * Constructor for deep copy
-     * @param original the original board to deep copy
+     * Constructor for copying a board
+     * @param original the original board to copy
      */
     public ChessBoard(ChessBoard original) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = original.getPiece(position);
-
-                if (piece != null) {
-                    addPiece(position, new ChessPiece(piece));
-                }
-            }
+        original.ensureIndexed();
+        // Pieces are immutable and shared, so copying the references is enough
+        for (int row = 0; row < 8; row++) {
+            System.arraycopy(original.squares[row], 0, squares[row], 0, 8);
         }
+        System.arraycopy(original.pieceBitboards, 0, pieceBitboards, 0, pieceBitboards.length);
+        System.arraycopy(original.teamBitboards, 0, teamBitboards, 0, teamBitboards.length);
+        occupied = original.occupied;
+        kingSquares[0] = original.kingSquares[0];
+        kingSquares[1] = original.kingSquares[1];
+        key = original.key;
+        middlegameScore = original.middlegameScore;
+        endgameScore = original.endgameScore;
+        phase = original.phase;
+        state = original.state;
+        indexed = true;
     }
 
     @Override
@@ -38,12 +110,155 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(squares, that.squares);
+        ensureIndexed();
+        that.ensureIndexed();
+        // Different keys always mean different boards; equal keys almost always mean equal ones
+        return key == that.key && Arrays.equals(pieceBitboards, that.pieceBitboards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(getKey());
+    }
+
+    /**
+     * Gets the castling rights that are still open. A right is open if it has not
+     * been lost by moving the king or that rook, and the king and rook are on their
+     * starting squares; so a board set up with them there can castle.
+     *
+     * @return a mask of WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE and BLACK_QUEENSIDE
+     */
+    public int getCastlingRights() {
+        ensureIndexed();
+        int rights = ~state & ALL_CASTLING;
+        long whiteRooks = pieceBitboards[ChessPiece.index(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK)];
+        long blackRooks = pieceBitboards[ChessPiece.index(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK)];
+        if (kingSquares[ChessGame.TeamColor.WHITE.ordinal()] != Bitboards.square(1, 5)) {
+            rights &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        }
+        if (!Bitboards.contains(whiteRooks, Bitboards.square(1, 8))) {
+            rights &= ~WHITE_KINGSIDE;
+        }
+        if (!Bitboards.contains(whiteRooks, Bitboards.square(1, 1))) {
+            rights &= ~WHITE_QUEENSIDE;
+        }
+        if (kingSquares[ChessGame.TeamColor.BLACK.ordinal()] != Bitboards.square(8, 5)) {
+            rights &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        }
+        if (!Bitboards.contains(blackRooks, Bitboards.square(8, 8))) {
+            rights &= ~BLACK_KINGSIDE;
+        }
+        if (!Bitboards.contains(blackRooks, Bitboards.square(8, 1))) {
+            rights &= ~BLACK_QUEENSIDE;
+        }
+        return rights;
+    }
+
+    void setCastlingRights(int rights) {
+        state = (state & ~ALL_CASTLING) | (~rights & ALL_CASTLING);
+    }
+
+    /**
+     * Gets the square a pawn that has just moved two squares passed over, where an
+     * enemy pawn beside it can capture it en passant. It is only set when there is
+     * such an enemy pawn, so that positions that only differ by an en passant
+     * capture nobody can make are the same.
+     *
+     * @return the square index, or NO_SQUARE
+     */
+    public int getEnPassantSquare() {
+        int square = (state >>> EN_PASSANT_SHIFT) & EN_PASSANT_MASK;
+        return square == 0 ? NO_SQUARE : square;
+    }
+
+    /**
+     * Sets the en passant square, if an enemy pawn can capture on it
+     *
+     * @param square a square on row 3 or 6, or NO_SQUARE
+     */
+    void setEnPassantSquare(int square) {
+        ensureIndexed();
+        state &= ~(EN_PASSANT_MASK << EN_PASSANT_SHIFT);
+        if (square != NO_SQUARE) {
+            ChessGame.TeamColor pusher = Bitboards.row(square) == 3 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            state |= enPassantIfCapturable(square, pusher) << EN_PASSANT_SHIFT;
+        }
+    }
+
+    /**
+     * @return the square, if a pawn of the other team is beside the pawn that just
+     * moved over it, or else 0
+     */
+    private int enPassantIfCapturable(int square, ChessGame.TeamColor pusher) {
+        long capturers = pieceBitboards[ChessPiece.index(opponent(pusher), ChessPiece.PieceType.PAWN)];
+        // The squares a pusher's pawn here would attack are where capturing pawns stand
+        return (Attacks.pawn(pusher, square) & capturers) != 0 ? square : 0;
+    }
+
+    /**
+     * @return the number of half-moves since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return state >>> CLOCK_SHIFT;
+    }
+
+    void setHalfmoveClock(int halfmoveClock) {
+        state = (state & ((1 << CLOCK_SHIFT) - 1)) | (halfmoveClock << CLOCK_SHIFT);
+    }
+
+    /**
+     * @return the Zobrist numbers (see Zobrist) for the open castling rights and the
+     * en passant square, which with getKey identify the position
+     */
+    public long getStateKey() {
+        int enPassant = getEnPassantSquare();
+        return Zobrist.castling(getCastlingRights())
+                ^ (enPassant == NO_SQUARE ? 0 : Zobrist.enPassant(Bitboards.column(enPassant)));
+    }
+
+    /**
+     * Gets the Zobrist key of the pieces on the board (see Zobrist). Boards with the
+     * same pieces on the same squares have the same key, just as they are equal. The
+     * key does not include castling rights or en passant (see getStateKey), or whose
+     * turn it is, since the board does not know; see ChessGame.getKey.
+     *
+     * @return the board's key
+     */
+    public long getKey() {
+        ensureIndexed();
+        return key;
+    }
+
+    /**
+     * Gets the middlegame value of the pieces on the board (see PieceSquareTables).
+     * Like the key, it is kept up to date as moves are made and taken back, rather
+     * than added up when asked for.
+     *
+     * @return white's pieces' value less black's, in centipawns
+     */
+    public int getMiddlegameScore() {
+        ensureIndexed();
+        return middlegameScore;
+    }
+
+    /**
+     * @return white's pieces' endgame value less black's, in centipawns (see getMiddlegameScore)
+     */
+    public int getEndgameScore() {
+        ensureIndexed();
+        return endgameScore;
+    }
+
+    /**
+     * Gets how far the game is from the endgame, from the queens, rooks, bishops and
+     * knights left. A board with all of them has PieceSquareTables.MAX_PHASE, and
+     * more after promotions.
+     *
+     * @return the phase, 0 when only kings and pawns are left
+     */
+    public int getPhase() {
+        ensureIndexed();
+        return phase;
     }
 
     /**
@@ -53,7 +268,25 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow() - 1 ][position.getColumn() - 1] = piece;
+        ensureIndexed();
+        if (piece != null) {
+            piece = ChessPiece.of(piece.getTeamColor(), piece.getPieceType());
+        }
+        put(Bitboards.square(position), piece);
+    }
+
+    /**
+     * Puts a shared piece, or nothing, on a square, keeping the bitboards in step
+     */
+    private void put(int square, ChessPiece piece) {
+        ChessPiece previous = squares[square >>> 3][square & 7];
+        if (previous != null) {
+            clearBit(previous, square);
+        }
+        if (piece != null) {
+            setBit(piece, square);
+        }
+        squares[square >>> 3][square & 7] = piece;
     }
 
     /**
@@ -67,6 +300,14 @@ public class ChessBoard {
         return squares[position.getRow() - 1][position.getColumn() - 1];
     }
 
+    /**
+     * @param square the square index to look at (see Bitboards)
+     * @return Either the piece on the square, or null if it is empty
+     */
+    public ChessPiece getPieceAt(int square) {
+        return squares[square >>> 3][square & 7];
+    }
+
     /**
      * Determines if the given team is in check
      *
@@ -74,53 +315,218 @@ public class ChessBoard {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(ChessGame.TeamColor teamColor) {
-        // Get the position of the team's king
-        ChessPosition kingPosition = null;
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = getPiece(position);
-                if (piece != null && piece.getTeamColor() == teamColor && piece.getPieceType() == ChessPiece.PieceType.KING) {
-                    kingPosition = position;
-                    break;
-                }
-            }
+        int kingSquare = getKingSquare(teamColor);
+        if (kingSquare == NO_SQUARE) {
+            return false;
         }
+        return isAttacked(kingSquare, opponent(teamColor));
+    }
 
-        // Check if any of the other team's peices have a valid move to the king's location
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = getPiece(position);
-                if (piece != null && piece.getTeamColor() != teamColor && canMoveToKing(piece, position, kingPosition)) {
-                    return true;
-                }
+    /**
+     * Determines if any of a team's pieces attack a square, by looking outward from
+     * the square for pieces that could reach it
+     *
+     * @param square   the square index to test
+     * @param attacker the team that may be attacking
+     * @return True if a piece of the attacking team attacks the square
+     */
+    public boolean isAttacked(int square, ChessGame.TeamColor attacker) {
+        ensureIndexed();
+        int base = ChessPiece.index(attacker, ChessPiece.PieceType.KING);
+        long queens = pieceBitboards[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        long bishops = pieceBitboards[base + ChessPiece.PieceType.BISHOP.ordinal()];
+        long rooks = pieceBitboards[base + ChessPiece.PieceType.ROOK.ordinal()];
+
+        // A pawn attacks this square exactly when a defending pawn here would attack the pawn
+        return (Attacks.pawn(opponent(attacker), square) & pieceBitboards[base + ChessPiece.PieceType.PAWN.ordinal()]) != 0
+                || (Attacks.knight(square) & pieceBitboards[base + ChessPiece.PieceType.KNIGHT.ordinal()]) != 0
+                || (Attacks.king(square) & pieceBitboards[base]) != 0
+                || (Attacks.bishop(square, occupied) & (bishops | queens)) != 0
+                || (Attacks.rook(square, occupied) & (rooks | queens)) != 0;
+    }
+
+    /**
+     * Finds every piece, of either team, that attacks a square
+     *
+     * @param square   the square index to test
+     * @param occupied the squares to treat as occupied when following rays
+     * @return the squares of the pieces that attack the square
+     */
+    public long attackersTo(int square, long occupied) {
+        ensureIndexed();
+        int white = ChessPiece.index(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+        int black = ChessPiece.index(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        long knights = pieceBitboards[white + ChessPiece.PieceType.KNIGHT.ordinal()]
+                | pieceBitboards[black + ChessPiece.PieceType.KNIGHT.ordinal()];
+        long kings = pieceBitboards[white] | pieceBitboards[black];
+        long queens = pieceBitboards[white + ChessPiece.PieceType.QUEEN.ordinal()]
+                | pieceBitboards[black + ChessPiece.PieceType.QUEEN.ordinal()];
+        long bishops = pieceBitboards[white + ChessPiece.PieceType.BISHOP.ordinal()]
+                | pieceBitboards[black + ChessPiece.PieceType.BISHOP.ordinal()] | queens;
+        long rooks = pieceBitboards[white + ChessPiece.PieceType.ROOK.ordinal()]
+                | pieceBitboards[black + ChessPiece.PieceType.ROOK.ordinal()] | queens;
+
+        return (Attacks.pawn(ChessGame.TeamColor.BLACK, square) & pieceBitboards[white + ChessPiece.PieceType.PAWN.ordinal()])
+                | (Attacks.pawn(ChessGame.TeamColor.WHITE, square) & pieceBitboards[black + ChessPiece.PieceType.PAWN.ordinal()])
+                | (Attacks.knight(square) & knights)
+                | (Attacks.king(square) & kings)
+                | (Attacks.bishop(square, occupied) & bishops)
+                | (Attacks.rook(square, occupied) & rooks);
+    }
+
+    /**
+     * @return the other team
+     */
+    public static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    /**
+     * Makes a move on a chess board. The move can be taken back with unmakeMove.
+     *
+     * @param move chess move to preform
+     */
+    public void makeMove(ChessMove move) {
+        makeMove(Move.of(move));
+    }
+
+    /**
+     * Makes a packed move (see Move) on a chess board without allocating. The move
+     * can be taken back with unmakeMove. A king moving two squares castles, taking
+     * the rook with it, and a pawn moving diagonally to an empty square captures
+     * en passant.
+     *
+     * @param move packed move to preform
+     */
+    public void makeMove(int move) {
+        makeMove(move, true);
+    }
+
+    /**
+     * Makes a move for good: like makeMove, but it cannot be taken back, so no
+     * record is kept for unmakeMove. Games use this, so a long game does not
+     * build up records nothing will ever take back.
+     *
+     * @param move chess move to preform
+     */
+    public void playMove(ChessMove move) {
+        makeMove(Move.of(move), false);
+    }
+
+    private void makeMove(int move, boolean undoable) {
+        ensureIndexed();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = getPieceAt(from);
+        ChessPiece captured = getPieceAt(to);
+        int capturedSquare = to;
+        int enPassant = 0;
+        int clock = getHalfmoveClock() + 1;
+
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            clock = 0;
+            if (captured == null && Bitboards.column(from) != Bitboards.column(to)) {
+                // En passant: the captured pawn is beside the start square, not on the end square
+                capturedSquare = Bitboards.square(Bitboards.row(from), Bitboards.column(to));
+                captured = getPieceAt(capturedSquare);
+                put(capturedSquare, null);
+            } else if (Math.abs(to - from) == 16) {
+                enPassant = enPassantIfCapturable((from + to) / 2, piece.getTeamColor());
             }
+        } else if (piece.getPieceType() == ChessPiece.PieceType.KING && Math.abs(to - from) == 2) {
+            castleRook(from, to, false);
+        }
+        if (captured != null) {
+            clock = 0;
+        }
+        if (undoable) {
+            pushUndo(move, piece, captured, capturedSquare, state);
+        }
+
+        put(from, null);
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        if (promotion != null) {
+            put(to, ChessPiece.of(piece.getTeamColor(), promotion));
+        } else {
+            put(to, piece);
         }
-        return false;
+        int lost = (state | CASTLING_LOST[from] | CASTLING_LOST[to]) & ALL_CASTLING;
+        state = lost | (enPassant << EN_PASSANT_SHIFT) | (clock << CLOCK_SHIFT);
     }
 
-    private boolean canMoveToKing(ChessPiece piece, ChessPosition position, ChessPosition kingPosition) {
-        for (ChessMove move : piece.pieceMoves(this, position)) {
-            if (move.getEndPosition().equals(kingPosition)) {
-                return true;
-            }
+    /**
+     * Moves the rook for a king castling from one square to another, or moves it
+     * back when the castle is taken back
+     */
+    private void castleRook(int kingFrom, int kingTo, boolean undo) {
+        int rookFrom = kingTo > kingFrom ? kingFrom + 3 : kingFrom - 4;
+        int rookTo = (kingFrom + kingTo) / 2;
+        if (undo) {
+            put(rookFrom, getPieceAt(rookTo));
+            put(rookTo, null);
+        } else {
+            put(rookTo, getPieceAt(rookFrom));
+            put(rookFrom, null);
         }
-        return false;
     }
 
     /**
-     * Makes a move on a chess board
+     * Takes back the last move made with makeMove, putting back any captured piece
+     * and turning a promoted piece back into its pawn
      *
-     * @param move chess move to preform
+     * @throws IllegalStateException if there is no move to take back
      */
-    public void makeMove(ChessMove move) {
-        ChessPiece piece = getPiece(move.getStartPosition());
-        if (move.getPromotionPiece() != null) {
-            piece.setPieceType(move.getPromotionPiece());
+    public void unmakeMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        UndoRecord undo = undoStack[--undoCount];
+        int from = Move.from(undo.move);
+        int to = Move.to(undo.move);
+        put(to, null);
+        put(from, undo.movedPiece);
+        if (undo.capturedPiece != null) {
+            put(undo.capturedSquare, undo.capturedPiece);
+        }
+        if (undo.movedPiece.getPieceType() == ChessPiece.PieceType.KING && Math.abs(to - from) == 2) {
+            castleRook(from, to, true);
+        }
+        state = undo.state;
+        undo.clear();
+    }
+
+    private void pushUndo(int move, ChessPiece movedPiece, ChessPiece capturedPiece, int capturedSquare, int state) {
+        if (undoCount == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, Math.max(16, undoStack.length * 2));
+            for (int i = undoCount; i < undoStack.length; i++) {
+                undoStack[i] = new UndoRecord();
+            }
+        }
+        UndoRecord undo = undoStack[undoCount++];
+        undo.move = move;
+        undo.movedPiece = movedPiece;
+        undo.capturedPiece = capturedPiece;
+        undo.capturedSquare = capturedSquare;
+        undo.state = state;
+    }
+
+    /**
+     * Everything needed to take back one move. Records are kept on a stack and
+     * reused, so making and unmaking moves does not allocate.
+     */
+    private static final class UndoRecord {
+        private int move;
+        private ChessPiece movedPiece;
+        private ChessPiece capturedPiece;
+        private int capturedSquare;
+        // The board's state before the move
+        private int state;
+
+        private void clear() {
+            move = Move.NONE;
+            movedPiece = null;
+            capturedPiece = null;
         }
-        addPiece(move.getStartPosition(), null);
-        addPiece(move.getEndPosition(), piece);
     }
 
     /**
@@ -133,30 +539,127 @@ public class ChessBoard {
                 squares[row][col] = null;
             }
         }
+        clearBitboards();
+        indexed = true;
+        state = 0;
 
-        addPiece(new ChessPosition(1,1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(1,8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(1,2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1,7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1,3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1,6), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1,4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(1,5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(1,1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1,8), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1,2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1,7), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1,3), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1,6), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1,4), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(1,5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(2, col), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(2, col), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
         }
 
-        addPiece(new ChessPosition(8,1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(8,8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(8,2), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8,7), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8,3), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8,6), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8,4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(8,5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(8,1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8,8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8,2), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8,7), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8,3), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8,6), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8,4), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(8,5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
         for (int col = 1; col <= 8; col++) {
-            addPiece(new ChessPosition(7, col), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(7, col), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        }
+    }
+
+    /**
+     * @return the squares holding the given color and type of piece
+     */
+    public long getPieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        ensureIndexed();
+        return pieceBitboards[ChessPiece.index(color, type)];
+    }
+
+    /**
+     * @return the squares holding any of the given team's pieces
+     */
+    public long getTeamPieces(ChessGame.TeamColor color) {
+        ensureIndexed();
+        return teamBitboards[color.ordinal()];
+    }
+
+    /**
+     * @return the square index of the team's king, or NO_SQUARE if it has none
+     */
+    public int getKingSquare(ChessGame.TeamColor color) {
+        ensureIndexed();
+        return kingSquares[color.ordinal()];
+    }
+
+    /**
+     * @return the squares holding any piece
+     */
+    public long getOccupied() {
+        ensureIndexed();
+        return occupied;
+    }
+
+    private void setBit(ChessPiece piece, int square) {
+        long bit = Bitboards.bit(square);
+        pieceBitboards[piece.getIndex()] |= bit;
+        teamBitboards[piece.getTeamColor().ordinal()] |= bit;
+        occupied |= bit;
+        key ^= Zobrist.piece(piece.getIndex(), square);
+        middlegameScore += PieceSquareTables.middlegame(piece.getIndex(), square);
+        endgameScore += PieceSquareTables.endgame(piece.getIndex(), square);
+        phase += PieceSquareTables.phase(piece.getPieceType());
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            kingSquares[piece.getTeamColor().ordinal()] = square;
+        }
+    }
+
+    private void clearBit(ChessPiece piece, int square) {
+        long bit = ~Bitboards.bit(square);
+        pieceBitboards[piece.getIndex()] &= bit;
+        teamBitboards[piece.getTeamColor().ordinal()] &= bit;
+        occupied &= bit;
+        key ^= Zobrist.piece(piece.getIndex(), square);
+        middlegameScore -= PieceSquareTables.middlegame(piece.getIndex(), square);
+        endgameScore -= PieceSquareTables.endgame(piece.getIndex(), square);
+        phase -= PieceSquareTables.phase(piece.getPieceType());
+        if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            long kings = pieceBitboards[piece.getIndex()];
+            kingSquares[piece.getTeamColor().ordinal()] = kings == Bitboards.EMPTY ? NO_SQUARE : Bitboards.firstSquare(kings);
         }
     }
 
+    private void clearBitboards() {
+        Arrays.fill(pieceBitboards, Bitboards.EMPTY);
+        Arrays.fill(teamBitboards, Bitboards.EMPTY);
+        Arrays.fill(kingSquares, NO_SQUARE);
+        occupied = Bitboards.EMPTY;
+        key = 0;
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+    }
+
+    /**
+     * Rebuilds the bitboards from squares if they have not been built yet, which is
+     * the case for boards created by deserialization. Deserialized pieces are
+     * swapped for the shared ones at the same time.
+     */
+    private void ensureIndexed() {
+        if (indexed) {
+            return;
+        }
+        clearBitboards();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = squares[row][col];
+                if (piece != null) {
+                    piece = ChessPiece.of(piece.getTeamColor(), piece.getPieceType());
+                    squares[row][col] = piece;
+                    setBit(piece, row * 8 + col);
+                }
+            }
+        }
+        indexed = true;
+    }
 }
@@ -1,8 +1,11 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -15,6 +18,58 @@ public class ChessGame {
     public Boolean inProgress = true;
     private ChessBoard gameBoard;
     private TeamColor teamTurn;
+    // Status of the side to move, worked out once per position; null until needed.
+    // The key and clock it was worked out for catch changes made straight to the board.
+    private transient GameStatus gameStatus;
+    private transient long statusKey;
+    private transient int statusClock;
+
+    /*
+     * Keys (see getKey) of the positions reached since the last capture or pawn
+     * move, oldest first, not counting the current one. Those moves cannot be
+     * undone, so no earlier position can come up again. This is saved with the
+     * game so draws are still spotted after it is loaded again; the halfmove
+     * clock is kept, and saved, by the board.
+     *
+     * The array doubles when it fills, so only the first historyLength keys are
+     * in use.
+     */
+    private long[] positionHistory = new long[0];
+    private int historyLength = 0;
+
+    /*
+     * Every move made (see Move.of), oldest first, and the position in FEN they
+     * were made from; null for the standard starting position. Setting the board
+     * or turn starts over from the new position, which is only written out once
+     * the first move is made from it. Saved with the game so it can be replayed
+     * once it is over. Like positionHistory, moves doubles when it fills, so only
+     * the first moveCount are in use.
+     */
+    private int[] moves = new int[0];
+    private int moveCount = 0;
+    private String startFen;
+
+    /**
+     * The standard starting position in Forsyth-Edwards Notation (see fromFen)
+     */
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /**
+     * Half-moves without a capture or pawn move after which the game is drawn
+     */
+    public static final int FIFTY_MOVE_LIMIT = 100;
+
+    // FEN letters for each piece type, in PieceType order
+    private static final String FEN_CHARACTERS = "kqbnrp";
+    // FEN letters for each castling right, in the order of the ChessBoard bits
+    private static final String FEN_CASTLING = "KQkq";
+    private static final Map<Character, ChessPiece.PieceType> FEN_PIECES = Map.of(
+            'k', ChessPiece.PieceType.KING,
+            'q', ChessPiece.PieceType.QUEEN,
+            'b', ChessPiece.PieceType.BISHOP,
+            'n', ChessPiece.PieceType.KNIGHT,
+            'r', ChessPiece.PieceType.ROOK,
+            'p', ChessPiece.PieceType.PAWN);
 
     public ChessGame() {
         this.gameBoard = new ChessBoard();
@@ -22,6 +77,132 @@ public class ChessGame {
         this.teamTurn = TeamColor.WHITE;
     }
 
+    /**
+     * Sets up a game from a position in Forsyth-Edwards Notation, such as
+     * "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1". Every field but
+     * the move number is used. The fields after the side to move are optional;
+     * missing castling rights are taken from where the kings and rooks are.
+     *
+     * @param fen the position to set up
+     * @return a game in progress at that position
+     * @throws IllegalArgumentException if the position cannot be read
+     */
+    public static ChessGame fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] rows = fields[0].split("/");
+        if (fields.length < 2 || rows.length != 8) {
+            throw new IllegalArgumentException("Bad FEN: " + fen);
+        }
+
+        ChessBoard board = new ChessBoard();
+        for (int i = 0; i < 8; i++) {
+            int row = 8 - i;
+            int col = 1;
+            for (char c : rows[i].toCharArray()) {
+                if (c >= '1' && c <= '8') {
+                    col += c - '0';
+                } else {
+                    ChessPiece.PieceType type = FEN_PIECES.get(Character.toLowerCase(c));
+                    if (type == null || col > 8) {
+                        throw new IllegalArgumentException("Bad FEN: " + fen);
+                    }
+                    TeamColor color = Character.isUpperCase(c) ? TeamColor.WHITE : TeamColor.BLACK;
+                    board.addPiece(ChessPosition.of(row, col++), ChessPiece.of(color, type));
+                }
+            }
+            if (col != 9) {
+                throw new IllegalArgumentException("Bad FEN: " + fen);
+            }
+        }
+
+        if (fields.length >= 3 && !fields[2].equals("-")) {
+            int rights = 0;
+            for (char c : fields[2].toCharArray()) {
+                int right = FEN_CASTLING.indexOf(c);
+                if (right < 0) {
+                    throw new IllegalArgumentException("Bad FEN: " + fen);
+                }
+                rights |= 1 << right;
+            }
+            board.setCastlingRights(rights);
+        } else if (fields.length >= 3) {
+            board.setCastlingRights(0);
+        }
+        if (fields.length >= 4 && !fields[3].equals("-")) {
+            String square = fields[3];
+            if (square.length() != 2 || square.charAt(0) < 'a' || square.charAt(0) > 'h'
+                    || (square.charAt(1) != '3' && square.charAt(1) != '6')) {
+                throw new IllegalArgumentException("Bad FEN: " + fen);
+            }
+            board.setEnPassantSquare(Bitboards.square(square.charAt(1) - '0', square.charAt(0) - 'a' + 1));
+        }
+        if (fields.length >= 5) {
+            try {
+                board.setHalfmoveClock(Integer.parseInt(fields[4]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad FEN: " + fen);
+            }
+        }
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        switch (fields[1]) {
+            case "w" -> game.setTeamTurn(TeamColor.WHITE);
+            case "b" -> game.setTeamTurn(TeamColor.BLACK);
+            default -> throw new IllegalArgumentException("Bad FEN: " + fen);
+        }
+        return game;
+    }
+
+    /**
+     * @return this game's position in Forsyth-Edwards Notation (see fromFen)
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder();
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = gameBoard.getPiece(ChessPosition.of(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                char c = FEN_CHARACTERS.charAt(piece.getPieceType().ordinal());
+                fen.append(piece.getTeamColor() == TeamColor.WHITE ? Character.toUpperCase(c) : c);
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+        fen.append(teamTurn == TeamColor.WHITE ? " w " : " b ");
+
+        int rights = gameBoard.getCastlingRights();
+        for (int right = 0; right < FEN_CASTLING.length(); right++) {
+            if ((rights & (1 << right)) != 0) {
+                fen.append(FEN_CASTLING.charAt(right));
+            }
+        }
+        if (rights == 0) {
+            fen.append('-');
+        }
+
+        int enPassant = gameBoard.getEnPassantSquare();
+        if (enPassant == ChessBoard.NO_SQUARE) {
+            fen.append(" -");
+        } else {
+            fen.append(' ').append((char) ('a' + Bitboards.column(enPassant) - 1)).append(Bitboards.row(enPassant));
+        }
+        fen.append(' ').append(gameBoard.getHalfmoveClock()).append(" 1");
+        return fen.toString();
+    }
+
     /**
      * Enum identifying the 2 possible teams in a chess game
      */
@@ -30,6 +211,24 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * Enum identifying the state of the game for the team whose turn it is
+     */
+    public enum GameStatus {
+        NORMAL,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        /**
+         * The same position has come up three times with the same team to move
+         */
+        THREEFOLD_REPETITION,
+        /**
+         * Fifty moves each have gone by without a capture or pawn move
+         */
+        FIFTY_MOVE_RULE
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -44,6 +243,7 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         teamTurn = team;
+        clearHistory();
     }
 
     /**
@@ -53,6 +253,75 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         gameBoard = board;
+        clearHistory();
+    }
+
+    // The position was set directly, so no earlier position is known
+    private void clearHistory() {
+        positionHistory = new long[0];
+        historyLength = 0;
+        moveCount = 0;
+        startFen = null;
+        gameStatus = null;
+    }
+
+    /**
+     * @return the moves made so far, oldest first, starting from getStartFen
+     */
+    public List<ChessMove> getMoves() {
+        List<ChessMove> result = new ArrayList<>(moveCount);
+        for (int i = 0; i < moveCount; i++) {
+            result.add(Move.toChessMove(moves[i]));
+        }
+        return result;
+    }
+
+    /**
+     * @return the position the game's moves were made from, in Forsyth-Edwards
+     * Notation: where it started, or where its board or turn was last set
+     */
+    public String getStartFen() {
+        if (moveCount == 0) {
+            return toFen();
+        }
+        return startFen != null ? startFen : START_FEN;
+    }
+
+    /**
+     * @return the number of half-moves since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return gameBoard.getHalfmoveClock();
+    }
+
+    /**
+     * Gets the keys (see getKey) of the positions since the last capture or pawn
+     * move, oldest first, not including the current position. A search can use
+     * them to spot moves that would repeat an earlier position.
+     *
+     * @return a copy of the keys
+     */
+    public long[] getPositionHistory() {
+        return Arrays.copyOf(positionHistory, historyLength);
+    }
+
+    /**
+     * Counts how many times the current position has come up, including now. Only
+     * positions since the last capture or pawn move are looked at, and there are
+     * at most FIFTY_MOVE_LIMIT of those, so this takes a bounded amount of time.
+     *
+     * @return how many times this position, with the same team to move, has come up
+     */
+    public int getRepetitionCount() {
+        long key = getKey();
+        int count = 1;
+        // Positions with the other team to move cannot match, so check every other one
+        for (int i = historyLength - 2; i >= 0; i -= 2) {
+            if (positionHistory[i] == key) {
+                count++;
+            }
+        }
+        return count;
     }
 
     public void setFinished() {
@@ -68,21 +337,45 @@ public class ChessGame {
     }
 
 
+    /**
+     * Gets the Zobrist key of the game's position (see Zobrist): the pieces on the
+     * board, the castling rights and en passant square, and whose turn it is. Games in the same position have the same key.
+     *
+     * @return the position's key
+     */
+    public long getKey() {
+        return gameBoard.getKey() ^ gameBoard.getStateKey() ^ Zobrist.side(teamTurn);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ChessGame that = (ChessGame) o;
+        return getKey() == that.getKey() && teamTurn == that.teamTurn && Objects.equals(inProgress, that.inProgress)
+                && gameBoard.equals(that.gameBoard);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(getKey());
+    }
+
     /**
      * Gets the positions of the specified team's pieces
      *
-     * @return the chessboard
+     * @return the positions of the team's pieces
      */
     public Collection<ChessPosition> getTeamPositions(TeamColor team) {
-        Collection<ChessPosition> positions = new ArrayList<>();
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = gameBoard.getPiece(position);
-                if (piece != null && piece.getTeamColor() == team) {
-                    positions.add(position);
-                }
-            }
+        long pieces = gameBoard.getTeamPieces(team);
+        Collection<ChessPosition> positions = new ArrayList<>(Bitboards.count(pieces));
+        for (; pieces != 0; pieces &= pieces - 1) {
+            int square = Bitboards.firstSquare(pieces);
+            positions.add(ChessPosition.of(square));
         }
         return positions;
     }
@@ -95,23 +388,52 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        Collection<ChessMove> validMoves =  new ArrayList<>();
         ChessPiece piece = gameBoard.getPiece(startPosition);
         if (piece == null) {
             return null;
         }
-        TeamColor teamColor = piece.getTeamColor();
+        MoveList validMoves = new MoveList(32);
+        MoveGenerator.legalMoves(gameBoard, piece.getTeamColor(), Bitboards.bit(Bitboards.square(startPosition)), validMoves);
+        return validMoves.toChessMoves();
+    }
 
-        for (ChessMove move : piece.pieceMoves(gameBoard, startPosition)) {
-            ChessBoard testBoard = new ChessBoard(gameBoard);
-            testBoard.makeMove(move);
+    /**
+     * Gets every valid move for a team, in a single pass over its pieces
+     *
+     * @param teamColor the team to get valid moves for
+     * @return every move the team can make without leaving its king in check
+     */
+    public Collection<ChessMove> legalMoves(TeamColor teamColor) {
+        MoveList moves = new MoveList();
+        MoveGenerator.legalMoves(gameBoard, teamColor, moves);
+        return moves.toChessMoves();
+    }
 
-            if (!testBoard.isInCheck(teamColor)) {
-                validMoves.add(move);
-            }
-        }
+    /**
+     * Adds every valid move for a team to a list as packed moves (see Move),
+     * without allocating
+     *
+     * @param teamColor the team to get valid moves for
+     * @param moves     where to add the moves
+     */
+    public void legalMoves(TeamColor teamColor, MoveList moves) {
+        MoveGenerator.legalMoves(gameBoard, teamColor, moves);
+    }
 
-        return validMoves;
+    /**
+     * Determines if the team whose turn it is can make a move. Only this one move
+     * is checked, so this is cheaper than looking for it in validMoves.
+     *
+     * @param move the move to check
+     * @return True if the move is valid for the team to move
+     */
+    public boolean isLegal(ChessMove move) {
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        if (!move.getStartPosition().isOnBoard() || !move.getEndPosition().isOnBoard()
+                || promotion == ChessPiece.PieceType.KING || promotion == ChessPiece.PieceType.PAWN) {
+            return false;
+        }
+        return MoveGenerator.isLegal(gameBoard, teamTurn, Move.of(move));
     }
 
     /**
@@ -121,21 +443,103 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        if (validMoves(move.getStartPosition()) != null &&
-            teamTurn == gameBoard.getPiece(move.getStartPosition()).getTeamColor() &&
-            validMoves(move.getStartPosition()).contains(move) &&
-            this.inProgress) {
-            gameBoard.makeMove(move);
-            if (teamTurn == TeamColor.WHITE) {
-                setTeamTurn(TeamColor.BLACK);
-            } else {
-                setTeamTurn(TeamColor.WHITE);
-            }
+        if (this.inProgress && isLegal(move)) {
+            play(move, null);
+        } else {
+            throw new InvalidMoveException("Invalid move.");
+        }
+    }
+
+    /**
+     * Makes a move in a chess game, looking it up among the legal moves a cache
+     * holds for the position instead of checking it on the board. The cache is
+     * also asked whether the other team has any moves in the new position, so
+     * its moves are ready when it replies.
+     *
+     * @param move       chess move to preform
+     * @param legalMoves the cache to look the move up in
+     * @throws InvalidMoveException if move is invalid
+     */
+    public void makeMove(ChessMove move, LegalMoveCache legalMoves) throws InvalidMoveException {
+        if (this.inProgress && legalMoves.isLegal(this, move)) {
+            play(move, legalMoves);
         } else {
             throw new InvalidMoveException("Invalid move.");
         }
     }
 
+    // Makes a move already known to be legal; legalMoves may be null
+    private void play(ChessMove move, LegalMoveCache legalMoves) {
+        long previousKey = getKey();
+        if (moveCount == 0) {
+            String fen = toFen();
+            startFen = fen.equals(START_FEN) ? null : fen;
+        }
+        gameBoard.playMove(move);
+        // The board resets its clock on a capture or pawn move
+        if (gameBoard.getHalfmoveClock() == 0) {
+            historyLength = 0;
+        } else {
+            if (historyLength == positionHistory.length) {
+                positionHistory = Arrays.copyOf(positionHistory, Math.max(16, historyLength * 2));
+            }
+            positionHistory[historyLength++] = previousKey;
+        }
+        if (moveCount == moves.length) {
+            moves = Arrays.copyOf(moves, Math.max(16, moveCount * 2));
+        }
+        moves[moveCount++] = Move.of(move);
+        teamTurn = teamTurn == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        cacheStatus(computeGameStatus(legalMoves));
+        if (gameStatus != GameStatus.NORMAL && gameStatus != GameStatus.CHECK) {
+            setFinished();
+        }
+    }
+
+    /**
+     * Gets the status of the team whose turn it is. It is worked out once when a
+     * move is made, or when first asked for after the board or turn is set, and
+     * then reused until the position changes, including through getBoard.
+     *
+     * @return whether the team to move is in check, checkmate or stalemate, or
+     * the game is drawn by repetition or the fifty-move rule
+     */
+    public GameStatus getGameStatus() {
+        if (gameStatus == null || statusKey != getKey() || statusClock != getHalfmoveClock()) {
+            cacheStatus(computeGameStatus(null));
+        }
+        return gameStatus;
+    }
+
+    private void cacheStatus(GameStatus status) {
+        gameStatus = status;
+        statusKey = getKey();
+        statusClock = getHalfmoveClock();
+    }
+
+    private GameStatus computeGameStatus(LegalMoveCache legalMoves) {
+        boolean inCheck = isInCheck(teamTurn);
+        boolean canMove;
+        if (legalMoves != null) {
+            canMove = legalMoves.hasLegalMoves(this);
+        } else {
+            MoveList moves = new MoveList();
+            legalMoves(teamTurn, moves);
+            canMove = !moves.isEmpty();
+        }
+        if (!canMove) {
+            return inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+        }
+        // A checkmate on the last move stands, so the draws are checked after it
+        if (getHalfmoveClock() >= FIFTY_MOVE_LIMIT) {
+            return GameStatus.FIFTY_MOVE_RULE;
+        }
+        if (getRepetitionCount() >= 3) {
+            return GameStatus.THREEFOLD_REPETITION;
+        }
+        return inCheck ? GameStatus.CHECK : GameStatus.NORMAL;
+    }
+
     /**
      * Determines if the given team is in check
      *
@@ -153,11 +557,10 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        Collection<ChessMove> teamMoves = new ArrayList<>();
-        for (ChessPosition position : getTeamPositions(teamColor)) {
-            teamMoves.addAll(validMoves(position));
+        if (teamColor == teamTurn) {
+            return getGameStatus() == GameStatus.CHECKMATE;
         }
-        return  isInCheck(teamColor) && teamMoves.isEmpty();
+        return isInCheck(teamColor) && legalMoves(teamColor).isEmpty();
     }
 
     /**
@@ -168,11 +571,10 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        Collection<ChessMove> teamMoves = new ArrayList<>();
-        for (ChessPosition position : getTeamPositions(teamColor)) {
-            teamMoves.addAll(validMoves(position));
+        if (teamColor == teamTurn) {
+            return getGameStatus() == GameStatus.STALEMATE;
         }
-        return !isInCheck(teamColor) && teamMoves.isEmpty();
+        return !isInCheck(teamColor) && legalMoves(teamColor).isEmpty();
     }
 
 
@@ -1,6 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
 import java.util.Objects;
 
 /**
@@ -10,6 +9,36 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessMove {
+    /*
+     * The shared instance of every move a piece could geometrically make, indexed by
+     * (start square * 64 + end square) * 5 + promotion slot. Slot 0 is no promotion
+     * and slots 1 to 4 are the queen, bishop, knight and rook promotions.
+     */
+    private static final ChessMove[] MOVES = new ChessMove[64 * 64 * 5];
+
+    static {
+        for (int from = 0; from < 64; from++) {
+            long targets = Attacks.queen(from, Bitboards.EMPTY) | Attacks.knight(from);
+            for (; targets != 0; targets &= targets - 1) {
+                int to = Bitboards.firstSquare(targets);
+                MOVES[(from * 64 + to) * 5] = new ChessMove(ChessPosition.of(from), ChessPosition.of(to), null);
+
+                int fromRow = Bitboards.row(from);
+                int toRow = Bitboards.row(to);
+                boolean promotes = (fromRow == 7 && toRow == 8) || (fromRow == 2 && toRow == 1);
+                if (promotes && Math.abs(Bitboards.column(from) - Bitboards.column(to)) <= 1) {
+                    for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                        int slot = promotionSlot(type);
+                        if (slot > 0) {
+                            MOVES[(from * 64 + to) * 5 + slot] =
+                                    new ChessMove(ChessPosition.of(from), ChessPosition.of(to), type);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     private final ChessPosition startPosition;
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
@@ -36,8 +65,58 @@ public class ChessMove {
         this(startPosition, endPosition, null);
     }
 
+    /**
+     * Gets the shared move between two squares, so move generation does not
+     * allocate a new move for every candidate
+     *
+     * @param startSquare    square index the piece moves from
+     * @param endSquare      square index the piece moves to
+     * @param promotionPiece piece to promote to, or null
+     * @return the shared move, or a new one if no piece could ever make this move
+     */
+    public static ChessMove of(int startSquare, int endSquare, ChessPiece.PieceType promotionPiece) {
+        int slot = promotionSlot(promotionPiece);
+        if (slot >= 0) {
+            ChessMove move = MOVES[(startSquare * 64 + endSquare) * 5 + slot];
+            if (move != null) {
+                return move;
+            }
+        }
+        return new ChessMove(ChessPosition.of(startSquare), ChessPosition.of(endSquare), promotionPiece);
+    }
+
+    /**
+     * @return the shared move between two positions (see {@link #of(int, int, ChessPiece.PieceType)})
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        if (!startPosition.isOnBoard() || !endPosition.isOnBoard()) {
+            return new ChessMove(startPosition, endPosition, promotionPiece);
+        }
+        return of(Bitboards.square(startPosition), Bitboards.square(endPosition), promotionPiece);
+    }
+
+    /**
+     * @return 0 for no promotion, 1 to 4 for the pieces a pawn can promote to, or -1
+     */
+    private static int promotionSlot(ChessPiece.PieceType promotionPiece) {
+        if (promotionPiece == null) {
+            return 0;
+        }
+        return switch (promotionPiece) {
+            case QUEEN -> 1;
+            case BISHOP -> 2;
+            case KNIGHT -> 3;
+            case ROOK -> 4;
+            default -> -1;
+        };
+    }
+
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
@@ -50,7 +129,12 @@ public class ChessMove {
 
     @Override
     public int hashCode() {
-        return Objects.hash(getStartPosition(), getEndPosition(), getPromotionPiece());
+        int slot = promotionSlot(promotionPiece);
+        if (slot < 0 || !startPosition.isOnBoard() || !endPosition.isOnBoard()) {
+            return Objects.hash(getStartPosition(), getEndPosition(), getPromotionPiece());
+        }
+        // The move's index in the shared move table
+        return (Bitboards.square(startPosition) * 64 + Bitboards.square(endPosition)) * 5 + slot;
     }
 
     public String toAlgebraicNotation() {
@@ -64,13 +148,13 @@ public class ChessMove {
     public static ChessMove fromAlgebraicNotation(String notation) {
         int startColumn = notation.charAt(0) - 'a' + 1;
         int startRow = Character.getNumericValue((notation.charAt(1)));
-        ChessPosition startPosition = new ChessPosition(startRow, startColumn);
+        ChessPosition startPosition = ChessPosition.of(startRow, startColumn);
 
         int endColumn = notation.charAt(2) - 'a' + 1;
         int endRow = Character.getNumericValue(notation.charAt(3));
-        ChessPosition endPosition = new ChessPosition(endRow, endColumn);
+        ChessPosition endPosition = ChessPosition.of(endRow, endColumn);
 
-        return new ChessMove(startPosition, endPosition);
+        return of(startPosition, endPosition, null);
     }
 
     /**
@@ -1,9 +1,6 @@
 package chess;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
-import java.util.Objects;
 
 /**
  * Represents a single chess piece
@@ -12,8 +9,19 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessPiece {
+    // The shared instance of each color and type of piece, indexed by getIndex
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[index(color, type)] = new ChessPiece(color, type);
+            }
+        }
+    }
+
     private final ChessGame.TeamColor pieceColor;
-    private PieceType type;
+    private final PieceType type;
 
     public ChessPiece(ChessGame.TeamColor pieceColor, PieceType type) {
         this.pieceColor = pieceColor;
@@ -29,6 +37,23 @@ public class ChessPiece {
         this.type = original.getPieceType();
     }
 
+    /**
+     * Pieces never change, so one instance of each color and type can be shared
+     * by every board
+     *
+     * @return the shared piece of the given color and type
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, PieceType type) {
+        return PIECES[index(pieceColor, type)];
+    }
+
+    /**
+     * @return the shared piece with the given index (see getIndex)
+     */
+    public static ChessPiece of(int index) {
+        return PIECES[index];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -43,6 +68,9 @@ public class ChessPiece {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
@@ -52,7 +80,7 @@ public class ChessPiece {
 
     @Override
     public int hashCode() {
-        return Objects.hash(pieceColor, type);
+        return getIndex();
     }
 
     /**
@@ -70,10 +98,17 @@ public class ChessPiece {
     }
 
     /**
-     * Set the type of chess piece this piece is
+     * @return a number from 0 to 11 that is unique to this piece's color and type
      */
-    public void setPieceType(PieceType pieceType) {
-        type = pieceType;
+    public int getIndex() {
+        return index(pieceColor, type);
+    }
+
+    /**
+     * @return a number from 0 to 11 that is unique to the given color and type
+     */
+    public static int index(ChessGame.TeamColor color, PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
     }
 
     /**
@@ -84,172 +119,21 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        return switch (type) {
-            case KING -> getKingMoves(board, myPosition);
-            case QUEEN -> getQueenMoves(board, myPosition);
-            case BISHOP -> getBishopMoves(board, myPosition);
-            case KNIGHT -> getKnightMoves(board, myPosition);
-            case ROOK -> getRookMoves(board, myPosition);
-            case PAWN -> getPawnMoves(board, myPosition);
-        };
-    }
-
-    private boolean isWithinBounds(int row, int col) {
-        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
-    }
-
-    private Collection<ChessMove> getDirectionMoves(int rowDirection,
-                                                    int colDirection,
-                                                    int distance,
-                                                    boolean canMoveToEmpty,
-                                                    boolean canCapture,
-                                                    boolean pawnPromotion,
-                                                    ChessBoard board,
-                                                    ChessPosition myPosition) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-
-        for (int rowModifier = rowDirection, colModifier = colDirection;
-             rowModifier * rowDirection <= distance && colModifier * colDirection <= distance;
-             rowModifier += rowDirection, colModifier += colDirection) {
-            int newRow = row + rowModifier;
-            int newCol = col + colModifier;
-
-            if (isWithinBounds(newRow, newCol)) {
-                ChessPosition newPosition = new ChessPosition(newRow, newCol);
-                ChessPiece piece = board.getPiece(newPosition);
-
-                if (piece == null && canMoveToEmpty) {
-                        if (pawnPromotion) {
-                            moves.addAll(pawnPromotionMoves(myPosition, newPosition));
-                        } else {
-                            moves.add(new ChessMove(myPosition, newPosition));
-                        }
-                } else if (piece != null && piece.getTeamColor() != this.getTeamColor() && canCapture) {
-                        if (pawnPromotion) {
-                            moves.addAll(pawnPromotionMoves(myPosition, newPosition));
-                        } else {
-                            moves.add(new ChessMove(myPosition, newPosition));
-                        }
-                } if (piece != null) {
-                    break;
-                }
-            } else {
-                break;
-            }
-        }
-
-        return moves;
-    }
-
-    private Collection<ChessMove> getHorizontalVerticalMoves(int distance, ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = getDirectionMoves(1, 0, distance, true, true, false, board, myPosition);
-        moves.addAll(getDirectionMoves(-1, 0, distance, true, true, false, board, myPosition));
-        moves.addAll(getDirectionMoves(0, 1, distance, true, true, false, board, myPosition));
-        moves.addAll(getDirectionMoves(0, -1, distance, true, true, false, board, myPosition));
-        return moves;
+        MoveList moves = new MoveList(32);
+        pieceMoves(board, Bitboards.square(myPosition), moves);
+        return moves.toChessMoves();
     }
 
-    private Collection<ChessMove> getDiagonalMoves(int distance, ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = getDirectionMoves(1, 1, distance, true, true, false, board, myPosition);
-        moves.addAll(getDirectionMoves(1, -1, distance, true, true, false, board, myPosition));
-        moves.addAll(getDirectionMoves(-1, 1, distance, true, true, false, board, myPosition));
-        moves.addAll(getDirectionMoves(-1, -1, distance, true, true, false, board, myPosition));
-        return moves;
-    }
-
-    private Collection<ChessMove> getKingMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = getHorizontalVerticalMoves(1, board, myPosition);
-        moves.addAll(getDiagonalMoves(1, board, myPosition));
-        return moves;
-    }
-
-    private Collection<ChessMove> getQueenMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = getHorizontalVerticalMoves(8, board, myPosition);
-        moves.addAll(getDiagonalMoves(8, board, myPosition));
-        return moves;
-    }
-
-    private Collection<ChessMove> getBishopMoves(ChessBoard board, ChessPosition myPosition) {
-        return getDiagonalMoves(8, board, myPosition);
-    }
-
-    private Collection<ChessMove> getKnightMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        int row = myPosition.getRow();
-        int col = myPosition.getColumn();
-
-        for (int rowModifier = -2; rowModifier <= 2; rowModifier++) {
-            for (int colModifier = -2; colModifier <= 2; colModifier++) {
-                if (rowModifier == 0 || colModifier == 0 || Math.abs(rowModifier) == Math.abs(colModifier)) {
-                    continue;
-                }
-
-                int newRow = row + rowModifier;
-                int newCol = col + colModifier;
-
-                if (isWithinBounds(newRow, newCol)) {
-                    ChessPosition newPosition = new ChessPosition(newRow, newCol);
-                    ChessPiece piece = board.getPiece(newPosition);
-
-                    if (piece == null || piece.getTeamColor() != this.getTeamColor()) {
-                        moves.add(new ChessMove(myPosition, newPosition));
-                    }
-                }
-            }
-        }
-
-        return moves;
-    }
-
-    private Collection<ChessMove> getRookMoves(ChessBoard board, ChessPosition myPosition) {
-        return getHorizontalVerticalMoves(8, board, myPosition);
-    }
-
-    private Collection<ChessMove> getPawnMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new ArrayList<>();
-        int row = myPosition.getRow();
-
-        if (board.getPiece(myPosition).pieceColor == ChessGame.TeamColor.WHITE) {
-            if (row == 2) {
-                moves.addAll(getDirectionMoves(1, 0, 2, true, false, false, board, myPosition));
-                moves.addAll(getDirectionMoves(1, 1, 1, false, true, false, board, myPosition));
-                moves.addAll(getDirectionMoves(1, -1, 1, false, true, false, board, myPosition));
-            } else if (row == 7) {
-                moves.addAll(getDirectionMoves(1, 0, 1,true, false, true, board, myPosition));
-                moves.addAll(getDirectionMoves(1, 1, 1, false, true, true, board, myPosition));
-                moves.addAll(getDirectionMoves(1, -1, 1,false, true, true, board, myPosition));
-            } else {
-                moves.addAll(getDirectionMoves(1, 0, 1,true, false, false, board, myPosition));
-                moves.addAll(getDirectionMoves(1, 1, 1, false, true, false, board, myPosition));
-                moves.addAll(getDirectionMoves(1, -1, 1,false, true, false, board, myPosition));
-            }
-        } else {
-            if (row == 7) {
-                moves.addAll(getDirectionMoves(-1, 0, 2, true, false, false, board, myPosition));
-                moves.addAll(getDirectionMoves(-1, 1, 1, false, true, false, board, myPosition));
-                moves.addAll(getDirectionMoves(-1, -1, 1, false, true, false, board, myPosition));
-            } else if (row == 2) {
-                moves.addAll(getDirectionMoves(-1, 0, 1, true, false, true, board, myPosition));
-                moves.addAll(getDirectionMoves(-1, 1, 1, false, true, true, board, myPosition));
-                moves.addAll(getDirectionMoves(-1, -1, 1, false, true, true, board, myPosition));
-            } else {
-                moves.addAll(getDirectionMoves(-1, 0, 1, true, false, false, board, myPosition));
-                moves.addAll(getDirectionMoves(-1, 1, 1, false, true, false, board, myPosition));
-                moves.addAll(getDirectionMoves(-1, -1, 1, false, true, false, board, myPosition));
-            }
-        }
-
-        return moves;
-    }
-
-    private Collection<ChessMove> pawnPromotionMoves(ChessPosition myPosition, ChessPosition newPosition) {
-        return List.of(new ChessMove[]{
-                new ChessMove(myPosition, newPosition, PieceType.QUEEN),
-                new ChessMove(myPosition, newPosition, PieceType.BISHOP),
-                new ChessMove(myPosition, newPosition, PieceType.ROOK),
-                new ChessMove(myPosition, newPosition, PieceType.KNIGHT)
-        });
+    /**
+     * Adds the moves this piece could make from a square to a list, as packed moves
+     * (see Move), without allocating. Like pieceMoves, does not take into account
+     * moves that are illegal due to leaving the king in danger.
+     *
+     * @param board  the board the piece is on
+     * @param square the square index the piece is on
+     * @param moves  where to add the moves
+     */
+    public void pieceMoves(ChessBoard board, int square, MoveList moves) {
+        MoveGenerator.pieceMoves(board, this, square, moves);
     }
- }
+}
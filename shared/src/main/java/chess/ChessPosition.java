@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.Objects;
-
 /**
  * Represents a single square position on a chess board
  * <p>
@@ -9,6 +7,15 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessPosition {
+    // The shared instance for each of the 64 squares, indexed by square (see Bitboards)
+    private static final ChessPosition[] POSITIONS = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            POSITIONS[square] = new ChessPosition(Bitboards.row(square), Bitboards.column(square));
+        }
+    }
+
     private final int row;
     private final int column;
 
@@ -17,8 +24,38 @@ public class ChessPosition {
         this.column = column;
     }
 
+    /**
+     * Gets the shared position for a row and column, so board code does not
+     * allocate a new position for every square it looks at
+     *
+     * @return the shared position, or a new one if the row or column is off the board
+     */
+    public static ChessPosition of(int row, int column) {
+        if (row < 1 || row > 8 || column < 1 || column > 8) {
+            return new ChessPosition(row, column);
+        }
+        return POSITIONS[Bitboards.square(row, column)];
+    }
+
+    /**
+     * @return the shared position for a square index
+     */
+    public static ChessPosition of(int square) {
+        return POSITIONS[square];
+    }
+
+    /**
+     * @return True if this position is on the 8x8 board
+     */
+    public boolean isOnBoard() {
+        return row >= 1 && row <= 8 && column >= 1 && column <= 8;
+    }
+
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
@@ -28,7 +65,8 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(getRow(), getColumn());
+        // The square index for positions on the board
+        return (row - 1) * 8 + (column - 1);
     }
 
     /**
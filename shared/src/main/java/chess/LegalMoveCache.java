@@ -0,0 +1,159 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the legal moves of positions that have come up before, so games
+ * that reach the same position, as most do in the opening, look its moves up
+ * instead of generating them again.
+ * <p>
+ * Positions are keyed by their Zobrist key (see Zobrist) with the team whose
+ * moves they are: the pieces, castling rights and en passant square are all a
+ * position's moves depend on. The cache holds a fixed number of positions in a
+ * table indexed by key, and a new position replaces whichever one was in its
+ * slot, so it never grows past its capacity. It can be shared by any number of
+ * threads without locking; a position two threads add at once is just
+ * generated twice.
+ */
+public final class LegalMoveCache {
+    // A position's key and its moves (see Move); never changed once made
+    private record Entry(long key, int[] moves) {}
+
+    private final AtomicReferenceArray<Entry> entries;
+    private final int mask;
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity the most positions to hold, rounded up to a power of two
+     */
+    public LegalMoveCache(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be from 1 to 2^30 positions: " + capacity);
+        }
+        int slots = Integer.highestOneBit(capacity);
+        if (slots < capacity) {
+            slots <<= 1;
+        }
+        this.entries = new AtomicReferenceArray<>(slots);
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Gets the valid moves for a piece, like ChessGame.validMoves
+     *
+     * @param game          the game
+     * @param startPosition the piece to get valid moves for
+     * @return the piece's valid moves, or null if there is no piece at startPosition
+     */
+    public Collection<ChessMove> validMoves(ChessGame game, ChessPosition startPosition) {
+        ChessPiece piece = game.getBoard().getPiece(startPosition);
+        if (piece == null) {
+            return null;
+        }
+        int from = Bitboards.square(startPosition);
+        Collection<ChessMove> validMoves = new ArrayList<>();
+        for (int move : moves(game.getBoard(), piece.getTeamColor())) {
+            if (Move.from(move) == from) {
+                validMoves.add(Move.toChessMove(move));
+            }
+        }
+        return validMoves;
+    }
+
+    /**
+     * Determines if the team whose turn it is can make a move, like ChessGame.isLegal
+     *
+     * @param game the game
+     * @param move the move to check
+     * @return true if the move is valid for the team to move
+     */
+    public boolean isLegal(ChessGame game, ChessMove move) {
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        if (!move.getStartPosition().isOnBoard() || !move.getEndPosition().isOnBoard()
+                || promotion == ChessPiece.PieceType.KING || promotion == ChessPiece.PieceType.PAWN) {
+            return false;
+        }
+        int packed = Move.of(move);
+        for (int legal : moves(game.getBoard(), game.getTeamTurn())) {
+            if (Move.sameMove(legal, packed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param game the game
+     * @return true if the team whose turn it is has any valid move
+     */
+    public boolean hasLegalMoves(ChessGame game) {
+        return moves(game.getBoard(), game.getTeamTurn()).length > 0;
+    }
+
+    /**
+     * @return the number of lookups that found their position
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that had to generate their position's moves
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of positions replaced by other positions
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of positions held
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return the most positions the cache can hold
+     */
+    public int capacity() {
+        return entries.length();
+    }
+
+    private int[] moves(ChessBoard board, ChessGame.TeamColor color) {
+        long key = board.getKey() ^ board.getStateKey() ^ Zobrist.side(color);
+        int index = (int) (key ^ key >>> 32) & mask;
+        Entry entry = entries.get(index);
+        if (entry != null && entry.key() == key) {
+            hits.increment();
+            return entry.moves();
+        }
+
+        misses.increment();
+        MoveList moves = new MoveList();
+        MoveGenerator.legalMoves(board, color, moves);
+        int[] packed = new int[moves.size()];
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = moves.get(i);
+        }
+        Entry previous = entries.getAndSet(index, new Entry(key, packed));
+        if (previous == null) {
+            size.incrementAndGet();
+        } else if (previous.key() != key) {
+            evictions.increment();
+        }
+        return packed;
+    }
+}
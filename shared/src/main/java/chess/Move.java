@@ -0,0 +1,101 @@
+package chess;
+
+/**
+ * Packs a move into a single int so moves can be generated and stored without
+ * allocating objects.
+ * <p>
+ * Bits 0-5 hold the start square and bits 6-11 the end square (see
+ * {@link Bitboards}). Bits 12-14 hold the promotion piece: 0 for none, then 1 to 4
+ * for queen, bishop, knight and rook. The bits above that are flags describing
+ * the move.
+ */
+public final class Move {
+    /**
+     * Not a move; used where a move may be missing
+     */
+    public static final int NONE = 0;
+
+    /**
+     * The move captures a piece
+     */
+    public static final int CAPTURE = 1 << 15;
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            null,
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.ROOK
+    };
+
+    private Move() {}
+
+    /**
+     * @return a move from one square index to another, with no promotion or flags
+     */
+    public static int of(int from, int to) {
+        return from | (to << 6);
+    }
+
+    /**
+     * @return a move from one square index to another
+     */
+    public static int of(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        return from | (to << 6) | (promotionCode(promotion) << 12) | flags;
+    }
+
+    /**
+     * @return the packed form of a move, without flags
+     */
+    public static int of(ChessMove move) {
+        return of(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                move.getPromotionPiece(), 0);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    /**
+     * @return the piece type a pawn promotes to, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        return PROMOTIONS[(move >>> 12) & 0x7];
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * @return true if two moves go between the same squares with the same promotion,
+     * whatever their flags
+     */
+    public static boolean sameMove(int a, int b) {
+        return (a & 0x7FFF) == (b & 0x7FFF);
+    }
+
+    /**
+     * @return the shared ChessMove for a packed move
+     */
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(from(move), to(move), promotion(move));
+    }
+
+    private static int promotionCode(ChessPiece.PieceType promotion) {
+        if (promotion == null) {
+            return 0;
+        }
+        return switch (promotion) {
+            case QUEEN -> 1;
+            case BISHOP -> 2;
+            case KNIGHT -> 3;
+            case ROOK -> 4;
+            default -> throw new IllegalArgumentException("Cannot promote to " + promotion);
+        };
+    }
+}
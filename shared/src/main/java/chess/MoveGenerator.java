@@ -0,0 +1,342 @@
+package chess;
+
+/**
+ * Generates moves straight from the bitboards into a {@link MoveList}.
+ * <p>
+ * For legal moves, instead of trying each move and then testing for check, the
+ * pieces giving check and the pieces pinned to the king are found once up front.
+ * Every other piece's moves are then limited to the squares that block or capture
+ * a checker, and a pinned piece may only move along the line between its king and
+ * the pinning piece. Only king moves need their destination tested for attacks.
+ * En passant captures, which are rare and can expose the king along a row in a way
+ * pins do not cover, are tested by looking for attacks on the king with both pawns
+ * lifted off the board. The board is only read, never changed, so several threads
+ * may generate moves on one board as long as nothing moves on it meanwhile.
+ */
+public final class MoveGenerator {
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.KNIGHT
+    };
+
+    private MoveGenerator() {}
+
+    /**
+     * Adds every legal move for a team to a list
+     *
+     * @param board the board to generate moves on
+     * @param color the team to move
+     * @param moves where to add the moves
+     */
+    public static void legalMoves(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        legalMoves(board, color, ~Bitboards.EMPTY, moves);
+    }
+
+    /**
+     * Adds the legal moves for a team's pieces on the given squares to a list
+     *
+     * @param board the board to generate moves on
+     * @param color the team to move
+     * @param from  the squares of the pieces to generate moves for
+     * @param moves where to add the moves
+     */
+    public static void legalMoves(ChessBoard board, ChessGame.TeamColor color, long from, MoveList moves) {
+        ChessGame.TeamColor enemy = ChessBoard.opponent(color);
+        long ours = board.getTeamPieces(color);
+        long theirs = board.getTeamPieces(enemy);
+        long occupied = ours | theirs;
+        int king = board.getKingSquare(color);
+
+        // Squares a non-king move must land on: anywhere, unless it has to answer a check
+        long targets = ~ours;
+        long pinned = Bitboards.EMPTY;
+
+        if (king != ChessBoard.NO_SQUARE) {
+            long checkers = board.attackersTo(king, occupied) & theirs;
+            if ((from & Bitboards.bit(king)) != 0) {
+                addKingMoves(board, king, ours, theirs, occupied, moves);
+                if (checkers == 0) {
+                    addMoves(king, castlingTargets(board, color, king, occupied, theirs), theirs, moves);
+                }
+            }
+            if (Bitboards.count(checkers) > 1) {
+                return;
+            }
+            if (checkers != 0) {
+                int checker = Bitboards.firstSquare(checkers);
+                targets &= checkers | Attacks.between(king, checker);
+            }
+            pinned = pinnedPieces(board, king, enemy, ours, theirs);
+        }
+
+        long pieces = ours & from;
+        if (king != ChessBoard.NO_SQUARE) {
+            pieces &= ~Bitboards.bit(king);
+        }
+        for (; pieces != 0; pieces &= pieces - 1) {
+            int square = Bitboards.firstSquare(pieces);
+            long allowed = targets;
+            if ((pinned & Bitboards.bit(square)) != 0) {
+                allowed &= Attacks.line(king, square);
+            }
+            addPieceMoves(board.getPieceAt(square), square, occupied, theirs, allowed, moves);
+        }
+        addEnPassantMoves(board, color, from, moves);
+    }
+
+    /**
+     * Adds the moves a piece could make from a square, without checking whether they
+     * leave its king in danger
+     *
+     * @param board  the board to generate moves on
+     * @param piece  the piece to move
+     * @param square the square index the piece moves from
+     * @param moves  where to add the moves
+     */
+    public static void pieceMoves(ChessBoard board, ChessPiece piece, int square, MoveList moves) {
+        ChessGame.TeamColor color = piece.getTeamColor();
+        long ours = board.getTeamPieces(color);
+        long theirs = board.getTeamPieces(ChessBoard.opponent(color));
+        addPieceMoves(piece, square, ours | theirs, theirs, ~ours, moves);
+    }
+
+    /**
+     * Tests whether a single move is legal for a team, without generating the
+     * piece's other moves. The move must go to a square the piece attacks or, for a
+     * pawn, can advance to; must promote exactly when a pawn reaches the last row;
+     * and must not leave the team's own king in check.
+     *
+     * @param board the board to test the move on; it is not changed
+     * @param color the team to move
+     * @param move  the packed move to test (see Move); flags are ignored
+     * @return true if the move is legal
+     */
+    public static boolean isLegal(ChessBoard board, ChessGame.TeamColor color, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = board.getPieceAt(from);
+        if (piece == null || piece.getTeamColor() != color) {
+            return false;
+        }
+
+        long ours = board.getTeamPieces(color);
+        long theirs = board.getTeamPieces(ChessBoard.opponent(color));
+        long occupied = ours | theirs;
+        boolean pawn = piece.getPieceType() == ChessPiece.PieceType.PAWN;
+        long targets;
+        if (pawn) {
+            targets = pawnTargets(color, from, occupied, theirs) | enPassantTarget(board, color, from);
+        } else {
+            targets = attacks(piece, from, occupied);
+            if (piece.getPieceType() == ChessPiece.PieceType.KING && !board.isInCheck(color)) {
+                targets |= castlingTargets(board, color, from, occupied, theirs);
+            }
+        }
+        if (!Bitboards.contains(targets & ~ours, to)) {
+            return false;
+        }
+        boolean promotes = pawn && Bitboards.row(to) == (color == ChessGame.TeamColor.WHITE ? 8 : 1);
+        if (promotes != (Move.promotion(move) != null)) {
+            return false;
+        }
+
+        int captured = pawn && to == enPassantSquare(board, color) ? enPassantCapture(color, to) : to;
+        return leavesKingSafe(board, color, from, to, captured);
+    }
+
+    /**
+     * Tests whether a move leaves the team's king unattacked, by following the
+     * enemy's attacks over the board as it would be after the move. Castling needs
+     * no more than its king move tested, since the rook only blocks.
+     *
+     * @param captured the square of the piece the move captures, which is the
+     *                 destination except for en passant
+     */
+    private static boolean leavesKingSafe(ChessBoard board, ChessGame.TeamColor color, int from, int to,
+                                          int captured) {
+        int king = board.getKingSquare(color);
+        if (king == from) {
+            king = to;
+        }
+        if (king == ChessBoard.NO_SQUARE) {
+            return true;
+        }
+        long theirs = board.getTeamPieces(ChessBoard.opponent(color)) & ~Bitboards.bit(captured);
+        long occupied = (board.getTeamPieces(color) & ~Bitboards.bit(from)) | theirs | Bitboards.bit(to);
+        return (board.attackersTo(king, occupied) & theirs) == 0;
+    }
+
+    /**
+     * @return the square of the pawn captured by taking en passant on a square
+     */
+    private static int enPassantCapture(ChessGame.TeamColor color, int target) {
+        return target + (color == ChessGame.TeamColor.WHITE ? -8 : 8);
+    }
+
+    /**
+     * @return the squares a piece other than a pawn attacks from a square
+     */
+    private static long attacks(ChessPiece piece, int square, long occupied) {
+        return switch (piece.getPieceType()) {
+            case KNIGHT -> Attacks.knight(square);
+            case BISHOP -> Attacks.bishop(square, occupied);
+            case ROOK -> Attacks.rook(square, occupied);
+            case QUEEN -> Attacks.queen(square, occupied);
+            case KING -> Attacks.king(square);
+            case PAWN -> Attacks.pawn(piece.getTeamColor(), square);
+        };
+    }
+
+    private static void addPieceMoves(ChessPiece piece, int square, long occupied, long theirs, long allowed,
+                                      MoveList moves) {
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            addPawnMoves(piece.getTeamColor(), square, occupied, theirs, allowed, moves);
+        } else {
+            addMoves(square, attacks(piece, square, occupied) & allowed, theirs, moves);
+        }
+    }
+
+    /**
+     * @return the team's pieces that are the only piece between their king and an
+     * enemy bishop, rook or queen lined up with it
+     */
+    private static long pinnedPieces(ChessBoard board, int king, ChessGame.TeamColor enemy, long ours, long theirs) {
+        long queens = board.getPieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (Attacks.rook(king, theirs) & (board.getPieces(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (Attacks.bishop(king, theirs) & (board.getPieces(enemy, ChessPiece.PieceType.BISHOP) | queens));
+        long pinned = Bitboards.EMPTY;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Attacks.between(king, Bitboards.firstSquare(snipers)) & (ours | theirs);
+            if (Bitboards.count(blockers) == 1 && (blockers & ours) != 0) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    private static void addKingMoves(ChessBoard board, int king, long ours, long theirs, long occupied,
+                                     MoveList moves) {
+        // Take the king off the board so it cannot hide behind itself from a slider
+        long withoutKing = occupied & ~Bitboards.bit(king);
+        for (long targets = Attacks.king(king) & ~ours; targets != 0; targets &= targets - 1) {
+            int to = Bitboards.firstSquare(targets);
+            if ((board.attackersTo(to, withoutKing) & theirs) == 0) {
+                moves.add(Move.of(king, to, null, Bitboards.contains(theirs, to) ? Move.CAPTURE : 0));
+            }
+        }
+    }
+
+    /**
+     * @return the squares a pawn can capture on or advance to from a square
+     */
+    private static long pawnTargets(ChessGame.TeamColor color, int square, long occupied, long theirs) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int forward = white ? 8 : -8;
+        int startRow = white ? 2 : 7;
+
+        long targets = Attacks.pawn(color, square) & theirs;
+        int single = square + forward;
+        if (single >= 0 && single < 64 && !Bitboards.contains(occupied, single)) {
+            targets |= Bitboards.bit(single);
+            int twice = single + forward;
+            if (Bitboards.row(square) == startRow && !Bitboards.contains(occupied, twice)) {
+                targets |= Bitboards.bit(twice);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * @return the squares the king can castle to, if it is not in check. The
+     * squares between the king and rook must be empty, and the squares the king
+     * crosses and lands on must not be attacked.
+     */
+    private static long castlingTargets(ChessBoard board, ChessGame.TeamColor color, int king, long occupied,
+                                        long theirs) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int rights = board.getCastlingRights()
+                & (white ? ChessBoard.WHITE_KINGSIDE | ChessBoard.WHITE_QUEENSIDE
+                         : ChessBoard.BLACK_KINGSIDE | ChessBoard.BLACK_QUEENSIDE);
+        if (rights == 0) {
+            return Bitboards.EMPTY;
+        }
+        // The rights require the king and rooks to be on their starting squares
+        long targets = Bitboards.EMPTY;
+        if ((rights & (ChessBoard.WHITE_KINGSIDE | ChessBoard.BLACK_KINGSIDE)) != 0
+                && (Attacks.between(king, king + 3) & occupied) == 0
+                && (board.attackersTo(king + 1, occupied) & theirs) == 0
+                && (board.attackersTo(king + 2, occupied) & theirs) == 0) {
+            targets |= Bitboards.bit(king + 2);
+        }
+        if ((rights & (ChessBoard.WHITE_QUEENSIDE | ChessBoard.BLACK_QUEENSIDE)) != 0
+                && (Attacks.between(king, king - 4) & occupied) == 0
+                && (board.attackersTo(king - 1, occupied) & theirs) == 0
+                && (board.attackersTo(king - 2, occupied) & theirs) == 0) {
+            targets |= Bitboards.bit(king - 2);
+        }
+        return targets;
+    }
+
+    /**
+     * @return the square the team can capture en passant on, or NO_SQUARE
+     */
+    private static int enPassantSquare(ChessBoard board, ChessGame.TeamColor color) {
+        int target = board.getEnPassantSquare();
+        // Only the team that did not just move two squares can use it
+        if (target == ChessBoard.NO_SQUARE || Bitboards.row(target) != (color == ChessGame.TeamColor.WHITE ? 6 : 3)) {
+            return ChessBoard.NO_SQUARE;
+        }
+        return target;
+    }
+
+    /**
+     * @return the en passant square, if the team's pawn on the given square can
+     * capture on it
+     */
+    private static long enPassantTarget(ChessBoard board, ChessGame.TeamColor color, int square) {
+        int target = enPassantSquare(board, color);
+        return target == ChessBoard.NO_SQUARE ? Bitboards.EMPTY : Attacks.pawn(color, square) & Bitboards.bit(target);
+    }
+
+    private static void addEnPassantMoves(ChessBoard board, ChessGame.TeamColor color, long from, MoveList moves) {
+        int target = enPassantSquare(board, color);
+        if (target == ChessBoard.NO_SQUARE) {
+            return;
+        }
+        // Pawns that attack the square are where an enemy pawn on it would attack
+        long pawns = Attacks.pawn(ChessBoard.opponent(color), target)
+                & board.getPieces(color, ChessPiece.PieceType.PAWN) & from;
+        for (; pawns != 0; pawns &= pawns - 1) {
+            int square = Bitboards.firstSquare(pawns);
+            if (leavesKingSafe(board, color, square, target, enPassantCapture(color, target))) {
+                moves.add(Move.of(square, target, null, Move.CAPTURE));
+            }
+        }
+    }
+
+    private static void addPawnMoves(ChessGame.TeamColor color, int square, long occupied, long theirs,
+                                     long allowed, MoveList moves) {
+        int promotionRow = color == ChessGame.TeamColor.WHITE ? 8 : 1;
+        long targets = pawnTargets(color, square, occupied, theirs) & allowed;
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Bitboards.firstSquare(targets);
+            int flags = Bitboards.contains(theirs, to) ? Move.CAPTURE : 0;
+            if (Bitboards.row(to) == promotionRow) {
+                for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                    moves.add(Move.of(square, to, promotion, flags));
+                }
+            } else {
+                moves.add(Move.of(square, to, null, flags));
+            }
+        }
+    }
+
+    private static void addMoves(int square, long targets, long theirs, MoveList moves) {
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Bitboards.firstSquare(targets);
+            moves.add(Move.of(square, to, null, Bitboards.contains(theirs, to) ? Move.CAPTURE : 0));
+        }
+    }
+}
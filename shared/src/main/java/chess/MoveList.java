@@ -0,0 +1,73 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A growable list of packed moves (see {@link Move}) backed by an int array.
+ * Clear and reuse a list, for example one per search depth, to generate moves
+ * without allocating.
+ */
+public final class MoveList {
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(256);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return true if the list holds the same move, ignoring flags
+     */
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (Move.sameMove(moves[i], move)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the moves as shared ChessMove instances
+     */
+    public Collection<ChessMove> toChessMoves() {
+        Collection<ChessMove> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(Move.toChessMove(moves[i]));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,314 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the positions reachable in exactly a given number of moves ("perft").
+ * The counts for well-known positions have been worked out by many other move
+ * generators, so a matching count is a strong sign the move generator is correct,
+ * and the time taken measures how fast it is.
+ * <p>
+ * Counts can also be split across a {@link ForkJoinPool}. Each subtree gets its own
+ * copy of the board, so threads never share a board, and subtrees near the leaves
+ * are counted on one thread since copying a board costs more than counting them.
+ * <p>
+ * Run with no arguments to check every position in {@link #SUITE}, with
+ * {@code --parallel [threads]} to time the suite on 1, 2, 4 and so on up to that
+ * many threads (all cores by default) and report how well it scales, or with a
+ * depth and a FEN position to print the count below each move from that position.
+ * Moves at the last depth are counted without being made, so nodes per second
+ * measures move generation rather than making moves.
+ */
+public final class Perft {
+
+    /**
+     * A position and the number of leaf nodes it has at a depth
+     */
+    public record Position(String name, String fen, int depth, long nodes) {}
+
+    /**
+     * Positions with known counts, chosen to cover checks, pins, castling, en
+     * passant, promotions, checkmate and stalemate
+     */
+    public static final List<Position> SUITE = List.of(
+            new Position("Starting position", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", 5, 4865609),
+            new Position("Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 4, 4085603),
+            new Position("Rook endgame", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 5, 674624),
+            new Position("Mirrored castling", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 4, 422333),
+            new Position("Promotion with check", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 3, 62379),
+            new Position("En passant would expose king", "3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1", 6, 1134888),
+            new Position("En passant gives check", "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1", 6, 1440467),
+            new Position("En passant while pinned", "8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1", 6, 1015133),
+            new Position("Castling gives check", "5k2/8/8/8/8/8/8/4K2R w K - 0 1", 6, 661072),
+            new Position("Long castling gives check", "3k4/8/8/8/8/8/8/R3K3 w Q - 0 1", 6, 803711),
+            new Position("Castling rights", "r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1", 4, 1274206),
+            new Position("Castling prevented", "r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1", 4, 1720476),
+            new Position("Promotions", "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1", 5, 3605103),
+            new Position("Double check", "8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", 4, 23527),
+            new Position("Checkmate and stalemate", "8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1", 5, 1004658),
+            new Position("Promote out of check", "4k3/1P6/8/8/8/8/K7/8 w - - 0 1", 6, 217342),
+            new Position("Promote to give check", "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1", 6, 3821001),
+            new Position("Underpromote to check", "8/P1k5/K7/8/8/8/8/8 w - - 0 1", 6, 92683),
+            new Position("Self stalemate", "K1k5/8/P7/8/8/8/8/8 w - - 0 1", 6, 2217),
+            new Position("Stalemate and checkmate", "8/k1P5/8/1K6/8/8/8/8 w - - 0 1", 7, 567584)
+    );
+
+    // Subtrees this shallow are counted on one thread rather than split further
+    private static final int SEQUENTIAL_DEPTH = 3;
+
+    private Perft() {}
+
+    /**
+     * Counts the positions reachable from a game's position in exactly the given
+     * number of moves. The game's board is left as it was.
+     *
+     * @param game  the position to count from
+     * @param depth how many moves to look ahead
+     * @return the number of positions at that depth
+     */
+    public static long perft(ChessGame game, int depth) {
+        return perft(game.getBoard(), game.getTeamTurn(), depth, newLists(depth));
+    }
+
+    /**
+     * Counts the positions reachable from a game's position in exactly the given
+     * number of moves, splitting the work across a pool. The game's board is not
+     * changed.
+     *
+     * @param game  the position to count from
+     * @param depth how many moves to look ahead
+     * @param pool  the pool to count on
+     * @return the number of positions at that depth
+     */
+    public static long perft(ChessGame game, int depth, ForkJoinPool pool) {
+        return pool.invoke(new PerftTask(new ChessBoard(game.getBoard()), game.getTeamTurn(), depth));
+    }
+
+    /**
+     * Counts the positions at the given depth below each of many games, splitting
+     * the work across a pool. None of the games' boards are changed.
+     *
+     * @param games the positions to count from
+     * @param depth how many moves to look ahead
+     * @param pool  the pool to count on
+     * @return the count for each game, in the same order
+     */
+    public static long[] perft(List<ChessGame> games, int depth, ForkJoinPool pool) {
+        List<PerftTask> tasks = new ArrayList<>(games.size());
+        for (ChessGame game : games) {
+            tasks.add(new PerftTask(new ChessBoard(game.getBoard()), game.getTeamTurn(), depth));
+        }
+        return pool.invoke(new RecursiveTask<>() {
+            @Override
+            protected long[] compute() {
+                ForkJoinTask.invokeAll(tasks);
+                long[] counts = new long[tasks.size()];
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = tasks.get(i).join();
+                }
+                return counts;
+            }
+        });
+    }
+
+    /**
+     * Counts the positions below each legal move from a game's position, which is
+     * useful for finding which move a wrong count comes from
+     *
+     * @param game  the position to count from
+     * @param depth how many moves to look ahead, including the first
+     * @return the count for each first move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        ChessBoard board = game.getBoard();
+        ChessGame.TeamColor color = game.getTeamTurn();
+        MoveList[] lists = newLists(depth);
+        MoveList moves = new MoveList();
+        MoveGenerator.legalMoves(board, color, moves);
+
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(move);
+            counts.put(Move.toChessMove(move), perft(board, ChessBoard.opponent(color), depth - 1, lists));
+            board.unmakeMove();
+        }
+        return counts;
+    }
+
+    private static MoveList[] newLists(int depth) {
+        // One list per ply, reused at every node on that ply
+        MoveList[] lists = new MoveList[Math.max(depth, 1)];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new MoveList();
+        }
+        return lists;
+    }
+
+    private static long perft(ChessBoard board, ChessGame.TeamColor color, int depth, MoveList[] lists) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = lists[depth - 1];
+        moves.clear();
+        MoveGenerator.legalMoves(board, color, moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        ChessGame.TeamColor next = ChessBoard.opponent(color);
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            nodes += perft(board, next, depth - 1, lists);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts one subtree, splitting it into a task per move until it is shallow
+     * enough to count directly. The task owns its board.
+     */
+    private static final class PerftTask extends RecursiveTask<Long> {
+        private final ChessBoard board;
+        private final ChessGame.TeamColor color;
+        private final int depth;
+
+        private PerftTask(ChessBoard board, ChessGame.TeamColor color, int depth) {
+            this.board = board;
+            this.color = color;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth <= SEQUENTIAL_DEPTH) {
+                return perft(board, color, depth, newLists(depth));
+            }
+            MoveList moves = new MoveList();
+            MoveGenerator.legalMoves(board, color, moves);
+            List<PerftTask> tasks = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                ChessBoard child = new ChessBoard(board);
+                child.makeMove(moves.get(i));
+                tasks.add(new PerftTask(child, ChessBoard.opponent(color), depth - 1));
+            }
+            ForkJoinTask.invokeAll(tasks);
+
+            long nodes = 0;
+            for (PerftTask task : tasks) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length >= 1 && args[0].equals("--parallel")) {
+            int threads = args.length >= 2 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+            scaling(threads);
+            return;
+        }
+        if (args.length >= 2) {
+            int depth = Integer.parseInt(args[0]);
+            ChessGame game = ChessGame.fromFen(String.join(" ", List.of(args).subList(1, args.length)));
+            long total = 0;
+            for (Map.Entry<ChessMove, Long> entry : divide(game, depth).entrySet()) {
+                ChessMove move = entry.getKey();
+                String promotion = move.getPromotionPiece() == null ? ""
+                        : move.getPromotionPiece().name().substring(0, 1).toLowerCase();
+                System.out.printf("%s%s: %d%n", move.toAlgebraicNotation(), promotion, entry.getValue());
+                total += entry.getValue();
+            }
+            System.out.printf("Nodes: %d%n", total);
+            return;
+        }
+
+        long totalNodes = 0;
+        long totalNanos = 0;
+        boolean passed = true;
+        for (Position position : SUITE) {
+            ChessGame game = ChessGame.fromFen(position.fen());
+            long start = System.nanoTime();
+            long nodes = perft(game, position.depth());
+            long nanos = System.nanoTime() - start;
+            totalNodes += nodes;
+            totalNanos += nanos;
+
+            boolean correct = nodes == position.nodes();
+            passed &= correct;
+            System.out.printf("%-26s depth %d %,12d nodes %s %,8d ms %,12d nodes/s%n", position.name(),
+                    position.depth(), nodes, correct ? "ok  " : "FAIL", nanos / 1_000_000,
+                    nodesPerSecond(nodes, nanos));
+        }
+        System.out.printf("Total %,d nodes in %,d ms, %,d nodes/s%n", totalNodes, totalNanos / 1_000_000,
+                nodesPerSecond(totalNodes, totalNanos));
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Times the whole suite on pools of 1, 2, 4 and so on up to the given number of
+     * threads, and prints the speedup over one thread and the efficiency (speedup
+     * divided by threads) of each
+     */
+    private static void scaling(int maxThreads) {
+        List<ChessGame> games = new ArrayList<>();
+        for (Position position : SUITE) {
+            games.add(ChessGame.fromFen(position.fen()));
+        }
+
+        // Warm up so the first timing is not slowed by compilation
+        for (int i = 0; i < 3; i++) {
+            ForkJoinPool pool = new ForkJoinPool(1);
+            runSuite(games, pool);
+            pool.shutdown();
+        }
+
+        long baseline = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                long start = System.nanoTime();
+                long nodes = runSuite(games, pool);
+                long nanos = System.nanoTime() - start;
+                if (threads == 1) {
+                    baseline = nanos;
+                }
+                double speedup = (double) baseline / nanos;
+                System.out.printf("%3d threads %,8d ms %,12d nodes/s  speedup %5.2f  efficiency %5.1f%%%n", threads,
+                        nanos / 1_000_000, nodesPerSecond(nodes, nanos), speedup, 100 * speedup / threads);
+            } finally {
+                pool.shutdown();
+            }
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
+    }
+
+    private static long runSuite(List<ChessGame> games, ForkJoinPool pool) {
+        long nodes = 0;
+        for (int i = 0; i < games.size(); i++) {
+            Position position = SUITE.get(i);
+            long count = perft(games.get(i), position.depth(), pool);
+            if (count != position.nodes()) {
+                throw new IllegalStateException(position.name() + " counted " + count + ", expected " + position.nodes());
+            }
+            nodes += count;
+        }
+        return nodes;
+    }
+
+    private static long nodesPerSecond(long nodes, long nanos) {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+}
@@ -0,0 +1,157 @@
+package chess;
+
+/**
+ * How much each piece is worth on each square, in centipawns, once for the
+ * middlegame and once for the endgame: the piece's material value plus a bonus
+ * or penalty for where it stands. Knights are worth more in the center, pawns
+ * more as they advance, and the king wants shelter in the middlegame but the
+ * center in the endgame.
+ * <p>
+ * Values are from white's point of view, so black's pieces count negatively.
+ * Like Zobrist numbers, they only depend on the piece and its square, so a board
+ * keeps their sum up to date as pieces are added and removed; see
+ * ChessBoard.getMiddlegameScore, getEndgameScore and getPhase.
+ */
+public final class PieceSquareTables {
+    /**
+     * The phase of a board with all its pieces; it falls towards 0 as queens,
+     * rooks, bishops and knights come off
+     */
+    public static final int MAX_PHASE = 24;
+
+    // Indexed by PieceType ordinal: KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    private static final int[] MIDDLEGAME_VALUES = {0, 900, 330, 320, 500, 100};
+    private static final int[] ENDGAME_VALUES = {0, 900, 330, 320, 500, 120};
+    private static final int[] PHASES = {0, 4, 1, 1, 2, 0};
+
+    /*
+     * Bonuses for white's pieces, laid out as the board is seen from white's side:
+     * the first row here is row 8
+     */
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+    };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] ROOK = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+    };
+    private static final int[] PAWN_MIDDLEGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    // In the endgame a pawn is worth more the closer it is to promoting, wherever it is
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    // Material plus bonus, by piece index (see ChessPiece.getIndex) and square
+    private static final int[][] MIDDLEGAME = new int[12][64];
+    private static final int[][] ENDGAME = new int[12][64];
+
+    static {
+        int[][] middlegame = {KING_MIDDLEGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_MIDDLEGAME};
+        int[][] endgame = {KING_ENDGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_ENDGAME};
+        for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+            int white = ChessPiece.index(ChessGame.TeamColor.WHITE, type);
+            int black = ChessPiece.index(ChessGame.TeamColor.BLACK, type);
+            for (int square = 0; square < 64; square++) {
+                // Tables start at row 8, so white reads them flipped and black as laid out
+                MIDDLEGAME[white][square] = MIDDLEGAME_VALUES[type.ordinal()] + middlegame[type.ordinal()][square ^ 56];
+                ENDGAME[white][square] = ENDGAME_VALUES[type.ordinal()] + endgame[type.ordinal()][square ^ 56];
+                MIDDLEGAME[black][square] = -MIDDLEGAME_VALUES[type.ordinal()] - middlegame[type.ordinal()][square];
+                ENDGAME[black][square] = -ENDGAME_VALUES[type.ordinal()] - endgame[type.ordinal()][square];
+            }
+        }
+    }
+
+    private PieceSquareTables() {}
+
+    /**
+     * @return the middlegame value of a piece (see ChessPiece.getIndex) on a square,
+     * negative for black
+     */
+    public static int middlegame(int pieceIndex, int square) {
+        return MIDDLEGAME[pieceIndex][square];
+    }
+
+    /**
+     * @return the endgame value of a piece (see ChessPiece.getIndex) on a square,
+     * negative for black
+     */
+    public static int endgame(int pieceIndex, int square) {
+        return ENDGAME[pieceIndex][square];
+    }
+
+    /**
+     * @return how much a piece of the given type adds to a board's phase
+     */
+    public static int phase(ChessPiece.PieceType type) {
+        return PHASES[type.ordinal()];
+    }
+}
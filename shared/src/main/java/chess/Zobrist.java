@@ -0,0 +1,85 @@
+package chess;
+
+/**
+ * Random numbers for Zobrist hashing, which identifies a position with a single
+ * 64-bit key: the XOR of one number for each piece on each square, numbers for
+ * the open castling rights and en passant column, and one more if black is to
+ * move. Moving a piece only changes the key by the numbers for the squares it
+ * leaves and enters, so the key can be kept up to date as moves are made
+ * instead of being worked out from the whole board.
+ * <p>
+ * The numbers come from a fixed seed, so a position has the same key in every
+ * run and on every machine, and keys can be stored.
+ */
+public final class Zobrist {
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    private static final long BLACK_TO_MOVE;
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+
+    static {
+        long seed = 0x2F0B_C0DE_5EEDL;
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                seed += 0x9E3779B97F4A7C15L;
+                squares[square] = mix(seed);
+            }
+        }
+        seed += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE = mix(seed);
+        // One number per castling right, combined for each set of rights
+        long[] rights = new long[4];
+        for (int i = 0; i < rights.length; i++) {
+            seed += 0x9E3779B97F4A7C15L;
+            rights[i] = mix(seed);
+        }
+        for (int mask = 0; mask < CASTLING.length; mask++) {
+            for (int i = 0; i < rights.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    CASTLING[mask] ^= rights[i];
+                }
+            }
+        }
+        for (int file = 0; file < EN_PASSANT.length; file++) {
+            seed += 0x9E3779B97F4A7C15L;
+            EN_PASSANT[file] = mix(seed);
+        }
+    }
+
+    private Zobrist() {}
+
+    // The splitmix64 finalizer, which spreads each seed into a well-mixed number
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return the number for a piece (see ChessPiece.getIndex) on a square
+     */
+    public static long piece(int pieceIndex, int square) {
+        return PIECE_SQUARE[pieceIndex][square];
+    }
+
+    /**
+     * @return the number for a set of open castling rights (see ChessBoard.getCastlingRights)
+     */
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * @return the number for an en passant square on the given column, 1 to 8
+     */
+    public static long enPassant(int column) {
+        return EN_PASSANT[column - 1];
+    }
+
+    /**
+     * @return the number to XOR into a board's key for the team to move
+     */
+    public static long side(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0;
+    }
+}
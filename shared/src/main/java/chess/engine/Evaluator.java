@@ -0,0 +1,40 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.PieceSquareTables;
+
+/**
+ * Scores positions for the search, in centipawns (hundredths of a pawn)
+ */
+public final class Evaluator {
+    // Indexed by PieceType ordinal; the king is never captured, so it is worth nothing here
+    private static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    private Evaluator() {}
+
+    /**
+     * @return the value of a piece type, in centipawns
+     */
+    public static int value(ChessPiece.PieceType type) {
+        return PIECE_VALUES[type.ordinal()];
+    }
+
+    /**
+     * Scores a position by the material each team has and where its pieces stand.
+     * The middlegame and endgame scores are blended by how many pieces are left,
+     * so a position slides smoothly from one to the other. Both are kept up to
+     * date by the board as moves are made, so this does not look at the pieces.
+     *
+     * @param board the position to score
+     * @param color the team to score it for
+     * @return how far ahead the team is; negative if it is behind
+     */
+    public static int evaluate(ChessBoard board, ChessGame.TeamColor color) {
+        int phase = Math.min(board.getPhase(), PieceSquareTables.MAX_PHASE);
+        int score = (board.getMiddlegameScore() * phase
+                + board.getEndgameScore() * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+        return color == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
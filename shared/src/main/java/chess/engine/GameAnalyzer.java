@@ -0,0 +1,145 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Goes back over a game move by move, searching each position to score the
+ * move played against the best move there, and judges how much each move
+ * gave away.
+ * <p>
+ * Positions are searched in the order they were played and share one
+ * transposition table, so each search starts with what the one before it
+ * found. An analyzer is not thread-safe; give each thread its own.
+ */
+public final class GameAnalyzer {
+    /*
+     * Scores are capped here when working out how much a move gave away, so
+     * choosing a slower mate, or a won position over a mate, is not a blunder
+     */
+    private static final int WINNING_SCORE = 1000;
+
+    /**
+     * How bad a move was, by how many centipawns it gave away compared to the
+     * best move
+     */
+    public enum Judgement {
+        GOOD(0),
+        INACCURACY(50),
+        MISTAKE(100),
+        BLUNDER(300);
+
+        private final int loss;
+
+        Judgement(int loss) {
+            this.loss = loss;
+        }
+
+        /**
+         * @return the least a move must give away to be judged this way
+         */
+        public int loss() {
+            return loss;
+        }
+
+        static Judgement of(int loss) {
+            Judgement judgement = GOOD;
+            for (Judgement candidate : values()) {
+                if (loss >= candidate.loss) {
+                    judgement = candidate;
+                }
+            }
+            return judgement;
+        }
+    }
+
+    /**
+     * What the analysis found for one move
+     *
+     * @param move      the move played
+     * @param color     the team that played it
+     * @param score     the position after the move, for the team that played it,
+     *                  in Search's terms
+     * @param bestMove  the move the search preferred
+     * @param bestScore the position after the best move, for the same team
+     * @param judgement how much the move gave away
+     */
+    public record MoveAnalysis(ChessMove move, ChessGame.TeamColor color, int score,
+                               ChessMove bestMove, int bestScore, Judgement judgement) {}
+
+    private final SearchLimits limits;
+    private final TranspositionTable table;
+
+    /**
+     * @param limits how long to search each position
+     * @param table  the table the searches share
+     */
+    public GameAnalyzer(SearchLimits limits, TranspositionTable table) {
+        this.limits = limits;
+        this.table = table;
+    }
+
+    /**
+     * Analyzes every move of a game, from ChessGame.getStartFen
+     *
+     * @param game the game
+     * @return one analysis per move, in the order they were played
+     * @throws IllegalArgumentException if the moves do not lead to the game's position
+     */
+    public List<MoveAnalysis> analyze(ChessGame game) {
+        List<ChessMove> moves = game.getMoves();
+        ChessGame replay = ChessGame.fromFen(game.getStartFen());
+        ChessGame.TeamColor color = replay.getTeamTurn();
+        // The score of each position for the team to move, and the move the search preferred
+        int[] scores = new int[moves.size() + 1];
+        ChessMove[] bestMoves = new ChessMove[moves.size() + 1];
+        for (int i = 0; ; i++) {
+            SearchResult result = score(replay);
+            scores[i] = result.score();
+            bestMoves[i] = result.bestMove();
+            if (i == moves.size()) {
+                break;
+            }
+            try {
+                replay.makeMove(moves.get(i));
+            } catch (InvalidMoveException e) {
+                throw new IllegalArgumentException("Move " + (i + 1) + " cannot be played: " + moves.get(i));
+            }
+        }
+        if (replay.getKey() != game.getKey()) {
+            throw new IllegalArgumentException("The game's moves do not lead to its position");
+        }
+
+        List<MoveAnalysis> analysis = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            int score = -scores[i + 1];
+            /*
+             * The position after the move is searched a half-move deeper than the
+             * position before it, so the two scores disagree a little even when the
+             * best move was played; the move played is never worse than itself
+             */
+            int bestScore = moves.get(i).equals(bestMoves[i]) ? score : Math.max(scores[i], score);
+            int loss = cap(bestScore) - cap(score);
+            analysis.add(new MoveAnalysis(moves.get(i), color, score, bestMoves[i], bestScore, Judgement.of(loss)));
+            color = color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        }
+        return analysis;
+    }
+
+    // Draws the search would not see from the position alone are scored as draws
+    private SearchResult score(ChessGame game) {
+        ChessGame.GameStatus status = game.getGameStatus();
+        if (status == ChessGame.GameStatus.THREEFOLD_REPETITION || status == ChessGame.GameStatus.FIFTY_MOVE_RULE) {
+            return new SearchResult(null, 0, 0, 0, 0, List.of());
+        }
+        return new Search(game, table).search(limits);
+    }
+
+    private static int cap(int score) {
+        return Math.max(-WINNING_SCORE, Math.min(WINNING_SCORE, score));
+    }
+}
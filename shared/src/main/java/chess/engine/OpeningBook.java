@@ -0,0 +1,263 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+import java.util.random.RandomGenerator;
+
+/**
+ * An opening book in the Polyglot .bin format: a file of 16-byte big-endian
+ * entries, each a position key, a move, a weight and four bytes of learning
+ * data, sorted by key.
+ * <p>
+ * The file is memory-mapped, not read into the heap, and looked up by binary
+ * search, so a probe touches a few pages of the file and costs microseconds.
+ * Probe the book before searching; most opening positions are in it.
+ * <p>
+ * Positions are keyed by {@link PolyglotKeys#key}, as in books written by other
+ * Polyglot tools, unless another key function is given. {@link Writer} builds
+ * books keyed the same way this class reads them.
+ */
+public final class OpeningBook {
+    private static final int ENTRY_BYTES = 16;
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            null,
+            ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.QUEEN
+    };
+
+    /**
+     * A move the book suggests, and how often it should be played relative to
+     * the others for the same position
+     */
+    public record Candidate(ChessMove move, int weight) {}
+
+    private final MappedByteBuffer entries;
+    private final int size;
+    private final ToLongFunction<ChessGame> keys;
+
+    private OpeningBook(MappedByteBuffer entries, ToLongFunction<ChessGame> keys) {
+        this.entries = entries;
+        this.size = entries.capacity() / ENTRY_BYTES;
+        this.keys = keys;
+    }
+
+    /**
+     * Opens a book keyed by {@link PolyglotKeys#key}, as standard Polyglot books are
+     *
+     * @param file the .bin file
+     * @return the book
+     * @throws IOException if the file cannot be read or is not a book
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        return open(file, PolyglotKeys::key);
+    }
+
+    /**
+     * Opens a book
+     *
+     * @param file the .bin file
+     * @param keys works out a game's position key the way the book was written
+     * @return the book
+     * @throws IOException if the file cannot be read or is not a book
+     */
+    public static OpeningBook open(Path file, ToLongFunction<ChessGame> keys) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length % ENTRY_BYTES != 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, length), keys);
+        }
+    }
+
+    /**
+     * @return the number of entries in the book
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Looks up the moves the book has for a game's current position. Moves that
+     * are not legal there, which can only come from a key collision or a bad
+     * book, are left out.
+     *
+     * @param game the game to look up
+     * @return the moves, most heavily weighted first; empty if the position is not in the book
+     */
+    public List<Candidate> moves(ChessGame game) {
+        long key = keys.applyAsLong(game);
+        List<Candidate> candidates = new ArrayList<>();
+        for (int i = firstIndex(key); i < size && keyAt(i) == key; i++) {
+            int offset = i * ENTRY_BYTES;
+            ChessMove move = decode(game.getBoard(), entries.getShort(offset + 8) & 0xFFFF);
+            int weight = entries.getShort(offset + 10) & 0xFFFF;
+            if (weight > 0 && game.isLegal(move)) {
+                candidates.add(new Candidate(move, weight));
+            }
+        }
+        candidates.sort((a, b) -> Integer.compare(b.weight(), a.weight()));
+        return candidates;
+    }
+
+    /**
+     * Picks one of the book's moves for a game's current position at random,
+     * each in proportion to its weight
+     *
+     * @param game   the game to look up
+     * @param random where to get the random number
+     * @return the move, or null if the position is not in the book
+     */
+    public ChessMove pick(ChessGame game, RandomGenerator random) {
+        List<Candidate> candidates = moves(game);
+        int total = 0;
+        for (Candidate candidate : candidates) {
+            total += candidate.weight();
+        }
+        if (total == 0) {
+            return null;
+        }
+        int choice = random.nextInt(total);
+        for (Candidate candidate : candidates) {
+            choice -= candidate.weight();
+            if (choice < 0) {
+                return candidate.move();
+            }
+        }
+        throw new AssertionError();
+    }
+
+    // The index of the first entry whose key is not below the given one, comparing keys unsigned
+    private int firstIndex(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    /**
+     * Polyglot moves pack the end column and row into bits 0-5 and the start
+     * column and row into bits 6-11, which matches the square indexes used here,
+     * and the promotion piece into bits 12-14. Castling is written as the king
+     * taking its own rook, so it is turned back into the king's two-square move.
+     */
+    private static ChessMove decode(ChessBoard board, int polyglot) {
+        int to = polyglot & 0x3F;
+        int from = (polyglot >>> 6) & 0x3F;
+        ChessPiece.PieceType promotion = PROMOTIONS[Math.min((polyglot >>> 12) & 0x7, 4)];
+        ChessPiece king = board.getPieceAt(from);
+        ChessPiece rook = board.getPieceAt(to);
+        if (king != null && king.getPieceType() == ChessPiece.PieceType.KING
+                && rook != null && rook.getPieceType() == ChessPiece.PieceType.ROOK
+                && rook.getTeamColor() == king.getTeamColor()) {
+            to = to > from ? from + 2 : from - 2;
+        }
+        return ChessMove.of(from, to, promotion);
+    }
+
+    private static int encode(ChessBoard board, ChessMove move) {
+        int from = Bitboards.square(move.getStartPosition());
+        int to = Bitboards.square(move.getEndPosition());
+        ChessPiece piece = board.getPieceAt(from);
+        if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && Math.abs(to - from) == 2) {
+            // The rook's corner, on the king's row
+            to = to > from ? from - from % 8 + 7 : from - from % 8;
+        }
+        int promotion = 0;
+        for (int i = 1; i < PROMOTIONS.length; i++) {
+            if (PROMOTIONS[i] == move.getPromotionPiece()) {
+                promotion = i;
+            }
+        }
+        return promotion << 12 | from << 6 | to;
+    }
+
+    /**
+     * Collects moves played in positions and writes them out as a book. Adding the
+     * same move in the same position again adds to its weight.
+     */
+    public static final class Writer {
+        private static final int MAX_WEIGHT = 0xFFFF;
+
+        private final ToLongFunction<ChessGame> keys;
+        // Keyed by position key, then by Polyglot move, in the order the file needs
+        private final Map<Long, Map<Integer, Integer>> weights = new TreeMap<>(Long::compareUnsigned);
+
+        /**
+         * Creates a writer for a book keyed by {@link PolyglotKeys#key}
+         */
+        public Writer() {
+            this(PolyglotKeys::key);
+        }
+
+        /**
+         * @param keys works out a game's position key
+         */
+        public Writer(ToLongFunction<ChessGame> keys) {
+            this.keys = keys;
+        }
+
+        /**
+         * Adds a move to the book
+         *
+         * @param game   the game, in the position the move is played from
+         * @param move   the move
+         * @param weight how much to add to the move's weight
+         */
+        public void add(ChessGame game, ChessMove move, int weight) {
+            int polyglot = encode(game.getBoard(), move);
+            weights.computeIfAbsent(keys.applyAsLong(game), key -> new TreeMap<>())
+                    .merge(polyglot, weight, (a, b) -> Math.min(a + b, MAX_WEIGHT));
+        }
+
+        /**
+         * Writes the moves added so far to a book file, replacing it if it exists
+         *
+         * @param file the .bin file
+         * @throws IOException if the file cannot be written
+         */
+        public void write(Path file) throws IOException {
+            int count = weights.values().stream().mapToInt(Map::size).sum();
+            ByteBuffer buffer = ByteBuffer.allocate(count * ENTRY_BYTES);
+            for (Map.Entry<Long, Map<Integer, Integer>> position : weights.entrySet()) {
+                for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                    buffer.putLong(position.getKey())
+                            .putShort((short) (int) move.getKey())
+                            .putShort((short) (int) move.getValue())
+                            .putInt(0);
+                }
+            }
+            Files.write(file, buffer.array());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package chess.engine;
+
+import chess.ChessGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Searches a position on several threads at once (the "lazy SMP" scheme).
+ * <p>
+ * Every thread searches the whole position with its own board, but they share
+ * one {@link TranspositionTable}, so each thread finds the positions the others
+ * have already searched there and skips ahead. Half the helper threads start one
+ * iteration deeper than the main one, so the threads spread out over different
+ * parts of the tree rather than all searching the same moves in the same order.
+ * The result is the main thread's; the helpers only fill the table for it, and
+ * are stopped as soon as it finishes.
+ * <p>
+ * The node limit applies to the main thread alone, and the result counts the
+ * nodes of every thread.
+ */
+public final class ParallelSearch {
+    /**
+     * The most threads one search may use
+     */
+    public static final int MAX_THREADS = 256;
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+    // Helper threads are reused across searches, and never keep the JVM running
+    private static final ExecutorService HELPERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "search-helper-" + THREAD_NUMBER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final TranspositionTable table;
+    private final Search main;
+    private final List<Search> helpers = new ArrayList<>();
+
+    /**
+     * Prepares to search a game's current position. The game is not changed.
+     *
+     * @param game    the game to find a move in
+     * @param threads how many threads to search with, including the calling one
+     * @param table   the table the threads share
+     */
+    public ParallelSearch(ChessGame game, int threads, TranspositionTable table) {
+        if (threads < 1 || threads > MAX_THREADS) {
+            throw new IllegalArgumentException("A search needs 1 to " + MAX_THREADS + " threads");
+        }
+        this.table = table;
+        this.main = new Search(game, table);
+        for (int i = 1; i < threads; i++) {
+            helpers.add(new Search(game, table));
+        }
+    }
+
+    /**
+     * Searches the position on the calling thread and the helper threads until
+     * one of the limits is reached
+     *
+     * @param limits how deep, how many nodes and how long to search
+     * @return the main thread's best move and line, with the nodes of every thread
+     */
+    public SearchResult search(SearchLimits limits) {
+        // Before any helper starts, so every thread stores with the new search's age
+        main.clearStop();
+        for (Search helper : helpers) {
+            helper.clearStop();
+        }
+        table.newSearch();
+
+        List<Future<?>> running = new ArrayList<>(helpers.size());
+        for (int i = 0; i < helpers.size(); i++) {
+            Search helper = helpers.get(i);
+            int firstDepth = Math.min(1 + (i + 1) % 2, limits.depth());
+            running.add(HELPERS.submit(() -> helper.help(firstDepth, limits.depth())));
+        }
+
+        SearchResult result;
+        try {
+            result = main.searchShared(limits);
+        } finally {
+            for (Search helper : helpers) {
+                helper.stop();
+            }
+        }
+
+        long nodes = result.nodes();
+        for (int i = 0; i < running.size(); i++) {
+            try {
+                running.get(i).get();
+                nodes += helpers.get(i).getNodes();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("A search helper failed", e.getCause());
+            }
+        }
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes, result.millis(),
+                result.principalVariation());
+    }
+
+    /**
+     * Asks a running search to stop as soon as it has finished searching one move
+     * deep. Safe to call from any thread.
+     */
+    public void stop() {
+        main.stop();
+        for (Search helper : helpers) {
+            helper.stop();
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.MoveList;
+import chess.Zobrist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the best move in a position with a negamax alpha-beta search.
+ * <p>
+ * The search deepens one half-move at a time, so it always has the best move
+ * from the deepest search it finished when it runs out of depth, nodes or time,
+ * and each iteration tries the previous one's principal variation first. At the
+ * end of each line, captures are played out until the position is quiet, so a
+ * line is not scored in the middle of an exchange. Moves are generated legal, and
+ * made and taken back on a private copy of the game's board, without allocating.
+ * <p>
+ * Positions already searched are remembered in a {@link TranspositionTable},
+ * which can be shared by several searches; see {@link ParallelSearch}. A search
+ * is not thread-safe, but {@link #stop} may be called from another thread to
+ * end it early.
+ */
+public final class Search {
+    /**
+     * The score for checkmating on the current move; a mate n half-moves away
+     * scores MATE - n
+     */
+    public static final int MATE = 30000;
+
+    private static final int INFINITY = 32000;
+    // Room for the deepest search plus check extensions and captures played out after it
+    private static final int MAX_PLY = SearchLimits.MAX_DEPTH * 2;
+    // How many nodes to visit between looking at the clock
+    private static final int CHECK_INTERVAL = 1024;
+
+    // Move ordering: the table's best move first, then captures, promotions and killers
+    private static final int HASH_MOVE_SCORE = 1_000_000;
+    private static final int CAPTURE_SCORE = 100_000;
+    private static final int PROMOTION_SCORE = 90_000;
+    private static final int KILLER_SCORE = 80_000;
+
+    private final ChessBoard board;
+    private final ChessGame.TeamColor rootColor;
+
+    /*
+     * Keys of the game's earlier positions since the last capture or pawn move,
+     * followed by the key at each ply of the line being searched
+     */
+    private final long[] keys;
+    private final int historyLength;
+
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    private final int[][] moveScores = new int[MAX_PLY + 1][];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    // Triangular table: pv[ply] holds the best line found from ply onwards
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final TranspositionTable table;
+
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private boolean finishedIteration;
+    private boolean stopped;
+    private boolean helper;
+    private volatile boolean stopRequested;
+
+    /**
+     * Prepares to search a game's current position. The game is not changed.
+     *
+     * @param game  the game to find a move in
+     * @param table the table to remember positions in, which may be shared with
+     *              other searches, even ones running at the same time
+     */
+    public Search(ChessGame game, TranspositionTable table) {
+        this.table = table;
+        this.board = new ChessBoard(game.getBoard());
+        this.rootColor = game.getTeamTurn();
+        long[] history = game.getPositionHistory();
+        this.historyLength = history.length;
+        this.keys = new long[historyLength + MAX_PLY + 1];
+        System.arraycopy(history, 0, keys, 0, historyLength);
+        for (int ply = 0; ply <= MAX_PLY; ply++) {
+            moveLists[ply] = new MoveList();
+            moveScores[ply] = new int[256];
+        }
+    }
+
+    /**
+     * Searches the position until one of the limits is reached
+     *
+     * @param limits how deep, how many nodes and how long to search
+     * @return the best move and line from the deepest finished iteration
+     */
+    public SearchResult search(SearchLimits limits) {
+        stopRequested = false;
+        table.newSearch();
+        return iterate(limits, 1);
+    }
+
+    /**
+     * Searches as the main thread of a parallel search, which has already
+     * started a new search in the table and cleared every thread's stop
+     */
+    SearchResult searchShared(SearchLimits limits) {
+        return iterate(limits, 1);
+    }
+
+    /**
+     * Searches as a helper of a parallel search: from the given depth, with no
+     * result, and until stopped rather than until one move deep is finished
+     */
+    void help(int firstDepth, int lastDepth) {
+        helper = true;
+        iterate(SearchLimits.depth(lastDepth), firstDepth);
+    }
+
+    private SearchResult iterate(SearchLimits limits, int firstDepth) {
+        long start = System.nanoTime();
+        nodes = 0;
+        nodeLimit = limits.nodes();
+        deadline = limits.millis() >= Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE
+                : start + limits.millis() * 1_000_000;
+        finishedIteration = false;
+        stopped = false;
+        keys[historyLength] = key(rootColor);
+
+        MoveList rootMoves = new MoveList();
+        MoveGenerator.legalMoves(board, rootColor, rootMoves);
+        if (rootMoves.isEmpty()) {
+            int score = board.isInCheck(rootColor) ? -MATE : 0;
+            return new SearchResult(null, score, 0, 0, elapsedMillis(start), List.of());
+        }
+
+        SearchResult result = null;
+        for (int depth = firstDepth; depth <= limits.depth(); depth++) {
+            int score = search(depth, 0, -INFINITY, INFINITY, rootColor);
+            if (stopped) {
+                break;
+            }
+            finishedIteration = true;
+            int[] line = Arrays.copyOf(pv[0], pvLength[0]);
+            result = new SearchResult(Move.toChessMove(line[0]), score, depth, nodes, elapsedMillis(start),
+                    toChessMoves(line));
+            // A forced mate found now cannot get shorter by searching deeper
+            if (Math.abs(score) >= MATE - depth || nodes >= nodeLimit) {
+                break;
+            }
+        }
+        if (result == null) {
+            return null;
+        }
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes, elapsedMillis(start),
+                result.principalVariation());
+    }
+
+    /**
+     * Asks a running search to stop as soon as it has finished searching one move
+     * deep. Safe to call from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    // Forgets a stop asked for before the next search starts
+    void clearStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * @return the positions visited so far by the current or last search
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    private int search(int depth, int ply, int alpha, int beta, ChessGame.TeamColor color) {
+        boolean inCheck = board.isInCheck(color);
+        if (inCheck) {
+            // Look one move further at checks so the search does not stop in the middle of one
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiesce(ply, alpha, beta, color);
+        }
+
+        pvLength[ply] = ply;
+        if (visit()) {
+            return 0;
+        }
+        if (ply > 0 && isDraw(ply)) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluator.evaluate(board, color);
+        }
+
+        long key = keys[historyLength + ply];
+        long entry = table.probe(key);
+        int hashMove = TranspositionTable.move(entry);
+        // Only reuse scores off the principal variation, so it stays whole
+        boolean pvNode = beta - alpha > 1;
+        if (entry != 0 && !pvNode && TranspositionTable.depth(entry) >= depth) {
+            int score = fromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || bound == TranspositionTable.LOWER && score >= beta
+                    || bound == TranspositionTable.UPPER && score <= alpha) {
+                return Math.max(alpha, Math.min(beta, score));
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        MoveGenerator.legalMoves(board, color, moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(moves, ply, hashMove);
+
+        ChessGame.TeamColor next = ChessBoard.opponent(color);
+        int originalAlpha = alpha;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = nextMove(moves, ply, i);
+            board.makeMove(move);
+            keys[historyLength + ply + 1] = key(next);
+            int score;
+            if (i == 0) {
+                score = -search(depth - 1, ply + 1, -beta, -alpha, next);
+            } else {
+                // Try to prove the move is no better than the best so far with a null window,
+                // and only search it properly if that fails
+                score = -search(depth - 1, ply + 1, -alpha - 1, -alpha, next);
+                if (score > alpha && score < beta) {
+                    score = -search(depth - 1, ply + 1, -beta, -alpha, next);
+                }
+            }
+            board.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+                updatePv(ply, move);
+                if (alpha >= beta) {
+                    if (!Move.isCapture(move) && Move.promotion(move) == null && killers[ply][0] != move) {
+                        killers[ply][1] = killers[ply][0];
+                        killers[ply][0] = move;
+                    }
+                    table.store(key, depth, TranspositionTable.LOWER, toTable(beta, ply), move);
+                    return beta;
+                }
+            }
+        }
+        int bound = alpha > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, depth, bound, toTable(alpha, ply), bestMove);
+        return alpha;
+    }
+
+    /**
+     * Plays out captures and promotions until the position is quiet, letting the
+     * side to move stop whenever it would rather not capture. In check, every
+     * move is searched, since standing still is not an option.
+     */
+    private int quiesce(int ply, int alpha, int beta, ChessGame.TeamColor color) {
+        pvLength[ply] = ply;
+        if (visit()) {
+            return 0;
+        }
+        boolean inCheck = board.isInCheck(color);
+        if (!inCheck) {
+            int standPat = Evaluator.evaluate(board, color);
+            if (standPat >= beta) {
+                return beta;
+            }
+            alpha = Math.max(alpha, standPat);
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluator.evaluate(board, color);
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        MoveGenerator.legalMoves(board, color, moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(moves, ply, Move.NONE);
+
+        ChessGame.TeamColor next = ChessBoard.opponent(color);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = nextMove(moves, ply, i);
+            if (!inCheck && !Move.isCapture(move) && Move.promotion(move) == null) {
+                // Moves are sorted, so every move after this one is quiet too
+                break;
+            }
+            board.makeMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha, next);
+            board.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > alpha) {
+                alpha = score;
+                updatePv(ply, move);
+                if (alpha >= beta) {
+                    return beta;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Counts a node and, every so often, checks whether the search should stop
+     *
+     * @return true if the search has been stopped
+     */
+    private boolean visit() {
+        nodes++;
+        // Once a move is known, stop as soon as any limit is passed
+        if ((nodes & (CHECK_INTERVAL - 1)) == 0 && (finishedIteration || helper)
+                && (stopRequested || nodes >= nodeLimit || System.nanoTime() >= deadline)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    /**
+     * @return true if the position at this ply is drawn by the fifty-move rule or
+     * repeats an earlier one. Within a search, one repetition is enough, since the
+     * side that could avoid it would already have done so.
+     */
+    private boolean isDraw(int ply) {
+        int clock = board.getHalfmoveClock();
+        if (clock >= ChessGame.FIFTY_MOVE_LIMIT) {
+            return true;
+        }
+        int current = historyLength + ply;
+        long key = keys[current];
+        // Only positions since the last capture or pawn move, with the same side to move, can match
+        for (int i = current - 2; i >= Math.max(0, current - clock); i -= 2) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mate scores are stored counted from the entry's position, rather than from
+     * the root, so they stay right when the position is reached at another ply
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        } else if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        } else if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private long key(ChessGame.TeamColor color) {
+        return board.getKey() ^ board.getStateKey() ^ Zobrist.side(color);
+    }
+
+    private void scoreMoves(MoveList moves, int ply, int hashMove) {
+        int[] scores = moveScores[ply];
+        if (scores.length < moves.size()) {
+            scores = new int[moves.size()];
+            moveScores[ply] = scores;
+        }
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score = 0;
+            if (hashMove != Move.NONE && Move.sameMove(move, hashMove)) {
+                score = HASH_MOVE_SCORE;
+            } else if (Move.isCapture(move)) {
+                // Most valuable victim first, then least valuable attacker
+                ChessPiece victim = board.getPieceAt(Move.to(move));
+                int victimValue = victim == null ? Evaluator.value(ChessPiece.PieceType.PAWN)
+                        : Evaluator.value(victim.getPieceType());
+                int attackerValue = Evaluator.value(board.getPieceAt(Move.from(move)).getPieceType());
+                score = CAPTURE_SCORE + victimValue * 10 - attackerValue;
+            } else if (Move.promotion(move) != null) {
+                score = PROMOTION_SCORE + Evaluator.value(Move.promotion(move));
+            } else if (move == killers[ply][0]) {
+                score = KILLER_SCORE;
+            } else if (move == killers[ply][1]) {
+                score = KILLER_SCORE - 1;
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Moves the best scored of the moves from index onwards to index and returns
+     * it. Picking one at a time avoids sorting moves that a cutoff makes unneeded.
+     */
+    private int nextMove(MoveList moves, int ply, int index) {
+        int[] scores = moveScores[ply];
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves.get(best);
+        if (best != index) {
+            moves.set(best, moves.get(index));
+            moves.set(index, move);
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+        return move;
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][ply] = move;
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+        pvLength[ply] = pvLength[ply + 1];
+    }
+
+    private static List<ChessMove> toChessMoves(int[] line) {
+        List<ChessMove> moves = new ArrayList<>(line.length);
+        for (int move : line) {
+            moves.add(Move.toChessMove(move));
+        }
+        return moves;
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,56 @@
+package chess.engine;
+
+/**
+ * How far a search may go. The search stops at whichever limit it reaches
+ * first, but always finishes searching one move deep so it has a move to play.
+ *
+ * @param depth  the deepest iteration to search, in half-moves
+ * @param nodes  the most positions to visit
+ * @param millis the most time to take, in milliseconds
+ */
+public record SearchLimits(int depth, long nodes, long millis) {
+
+    /**
+     * The deepest a search can go
+     */
+    public static final int MAX_DEPTH = 64;
+
+    public SearchLimits {
+        if (depth < 1 || depth > MAX_DEPTH || nodes < 1 || millis < 1) {
+            throw new IllegalArgumentException("Search limits must be positive and at most " + MAX_DEPTH + " deep");
+        }
+    }
+
+    /**
+     * @return limits that search to the given depth however long it takes
+     */
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return limits that search as deep as possible in the given number of nodes
+     */
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(MAX_DEPTH, nodes, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return limits that search as deep as possible in the given time
+     */
+    public static SearchLimits time(long millis) {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, millis);
+    }
+
+    public SearchLimits withDepth(int depth) {
+        return new SearchLimits(depth, nodes, millis);
+    }
+
+    public SearchLimits withNodes(long nodes) {
+        return new SearchLimits(depth, nodes, millis);
+    }
+
+    public SearchLimits withMillis(long millis) {
+        return new SearchLimits(depth, nodes, millis);
+    }
+}
@@ -0,0 +1,47 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * What a search found, from its deepest finished iteration
+ *
+ * @param bestMove           the move to play, or null if the side to move has none
+ * @param score              how good the position is for the side to move, in
+ *                           centipawns, or a mate score (see {@link #isMate})
+ * @param depth              the depth of the iteration the result comes from
+ * @param nodes              the positions visited over the whole search
+ * @param millis             how long the whole search took
+ * @param principalVariation the moves the search expects both sides to play,
+ *                           starting with bestMove
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long millis,
+                           List<ChessMove> principalVariation) {
+
+    /**
+     * @return true if the score means one side can force checkmate
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - SearchLimits.MAX_DEPTH * 2;
+    }
+
+    /**
+     * @return the number of moves to checkmate, negative if the side to move is
+     * the one being mated, or 0 if the score is not a mate score
+     */
+    public int mateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        int plies = Search.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies / 2);
+    }
+
+    /**
+     * @return nodes visited per second
+     */
+    public long nodesPerSecond() {
+        return millis == 0 ? nodes * 1000 : nodes * 1000 / millis;
+    }
+}
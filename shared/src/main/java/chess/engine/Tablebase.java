@@ -0,0 +1,235 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.MoveList;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Looks up endgames solved by {@link TablebaseGenerator}: for every position
+ * with the given pieces against a lone king, how many half-moves it takes to
+ * checkmate with best play on both sides, or that it is a draw.
+ * <p>
+ * Each endgame is a file of one byte per position, memory-mapped rather than
+ * read in, so a lookup is an index computed from the pieces' squares and one
+ * byte read. Positions are stored with the stronger side as white; positions
+ * where it is black are flipped top to bottom before looking them up. Castling
+ * rights, en passant and the fifty-move rule are ignored.
+ */
+public final class Tablebase {
+    /**
+     * What {@link #probe} returns for positions the tablebase does not cover
+     */
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    /**
+     * The solvable endgames: a king and the given pieces against a lone king
+     */
+    public enum Endgame {
+        KQK(ChessPiece.PieceType.QUEEN),
+        KRK(ChessPiece.PieceType.ROOK),
+        KPK(ChessPiece.PieceType.PAWN),
+        KBNK(ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT);
+
+        private final ChessPiece.PieceType[] pieces;
+
+        // Listed in PieceType order, the order their squares are indexed in
+        Endgame(ChessPiece.PieceType... pieces) {
+            this.pieces = pieces;
+        }
+
+        /**
+         * @return the stronger side's pieces besides its king
+         */
+        public ChessPiece.PieceType[] pieces() {
+            return pieces.clone();
+        }
+
+        /**
+         * @return the number of positions in the endgame's table, legal or not
+         */
+        public int size() {
+            return 1 << (1 + 6 * (2 + pieces.length));
+        }
+
+        /**
+         * @return the name of the endgame's file
+         */
+        public String fileName() {
+            return name() + ".tb";
+        }
+
+        // The number of each type of piece, four bits per type in PieceType order
+        int signature() {
+            int signature = 0;
+            for (ChessPiece.PieceType piece : pieces) {
+                signature += 1 << (4 * piece.ordinal());
+            }
+            return signature;
+        }
+    }
+
+    // Stored values: 0 is a draw, and a mate n half-moves away is stored as n + 1
+    static final int DRAW = 0;
+    static final int ILLEGAL = 255;
+
+    // Index bit 0 is 0 when the stronger side is to move
+    static final int STRONG_TO_MOVE = 0;
+    static final int WEAK_TO_MOVE = 1;
+
+    private final Map<Endgame, MappedByteBuffer> tables = new EnumMap<>(Endgame.class);
+
+    private Tablebase() {}
+
+    /**
+     * Maps every endgame file in a directory. Endgames without a file are not
+     * covered.
+     *
+     * @param directory where the files generated by {@link TablebaseGenerator} are
+     * @return the tablebase
+     * @throws IOException if a file cannot be read or is the wrong size
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Tablebase tablebase = new Tablebase();
+        for (Endgame endgame : Endgame.values()) {
+            Path file = directory.resolve(endgame.fileName());
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() != endgame.size()) {
+                    throw new IOException("Wrong size for " + endgame + ": " + file);
+                }
+                tablebase.tables.put(endgame, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+        return tablebase;
+    }
+
+    /**
+     * @return true if the endgame's file was found
+     */
+    public boolean covers(Endgame endgame) {
+        return tables.containsKey(endgame);
+    }
+
+    /**
+     * Looks up a game's current position
+     *
+     * @see #probe(ChessBoard, ChessGame.TeamColor)
+     */
+    public int probe(ChessGame game) {
+        return probe(game.getBoard(), game.getTeamTurn());
+    }
+
+    /**
+     * Looks up a position
+     *
+     * @param board  the position
+     * @param toMove the team to move
+     * @return a score for the team to move in {@link Search}'s terms: {@link Search#MATE}
+     * less the half-moves to mate if it wins, the negative of that if it loses, 0
+     * for a draw, or {@link #NOT_FOUND} if the position is not covered
+     */
+    public int probe(ChessBoard board, ChessGame.TeamColor toMove) {
+        ChessGame.TeamColor strong;
+        if (Long.bitCount(board.getTeamPieces(ChessGame.TeamColor.BLACK)) == 1) {
+            strong = ChessGame.TeamColor.WHITE;
+        } else if (Long.bitCount(board.getTeamPieces(ChessGame.TeamColor.WHITE)) == 1) {
+            strong = ChessGame.TeamColor.BLACK;
+        } else {
+            return NOT_FOUND;
+        }
+        ChessGame.TeamColor weak = ChessBoard.opponent(strong);
+        if (board.getKingSquare(strong) == ChessBoard.NO_SQUARE || board.getKingSquare(weak) == ChessBoard.NO_SQUARE) {
+            return NOT_FOUND;
+        }
+        int pieces = Long.bitCount(board.getTeamPieces(strong)) - 1;
+        int minors = Long.bitCount(board.getPieces(strong, ChessPiece.PieceType.BISHOP)
+                | board.getPieces(strong, ChessPiece.PieceType.KNIGHT));
+        if (pieces == 0 || pieces == 1 && minors == 1) {
+            // A king, or a king and one minor piece, cannot checkmate
+            return 0;
+        } else if (pieces > 2) {
+            return NOT_FOUND;
+        }
+
+        // Flip black's pieces to white's side of the board
+        int flip = strong == ChessGame.TeamColor.WHITE ? 0 : 56;
+        int index = (toMove == strong ? STRONG_TO_MOVE : WEAK_TO_MOVE)
+                | (board.getKingSquare(strong) ^ flip) << 1
+                | (board.getKingSquare(weak) ^ flip) << 7;
+        int shift = 13;
+        int signature = 0;
+        for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+            if (type == ChessPiece.PieceType.KING) {
+                continue;
+            }
+            long bitboard = board.getPieces(strong, type);
+            signature += Long.bitCount(bitboard) << (4 * type.ordinal());
+            for (; bitboard != 0; bitboard &= bitboard - 1, shift += 6) {
+                index |= (Long.numberOfTrailingZeros(bitboard) ^ flip) << shift;
+            }
+        }
+
+        for (Map.Entry<Endgame, MappedByteBuffer> table : tables.entrySet()) {
+            if (table.getKey().signature() == signature) {
+                return score(table.getValue().get(index) & 0xFF, index);
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Finds the best move in a game's current position: the quickest mate for the
+     * winning side, the slowest for the losing side, and a move that keeps the
+     * draw otherwise
+     *
+     * @param game the game to find a move in
+     * @return the move, or null if the position is not covered or has no moves
+     */
+    public ChessMove bestMove(ChessGame game) {
+        ChessBoard board = new ChessBoard(game.getBoard());
+        ChessGame.TeamColor color = game.getTeamTurn();
+        if (probe(board, color) == NOT_FOUND) {
+            return null;
+        }
+        MoveList moves = new MoveList();
+        MoveGenerator.legalMoves(board, color, moves);
+        int best = Move.NONE;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(move);
+            int score = probe(board, ChessBoard.opponent(color));
+            board.unmakeMove();
+            if (score != NOT_FOUND && -score > bestScore) {
+                bestScore = -score;
+                best = move;
+            }
+        }
+        return best == Move.NONE ? null : Move.toChessMove(best);
+    }
+
+    private static int score(int value, int index) {
+        if (value == ILLEGAL) {
+            return NOT_FOUND;
+        } else if (value == DRAW) {
+            return 0;
+        }
+        int mate = Search.MATE - (value - 1);
+        return (index & 1) == STRONG_TO_MOVE ? mate : -mate;
+    }
+}
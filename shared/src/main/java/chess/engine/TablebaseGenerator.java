@@ -0,0 +1,367 @@
+package chess.engine;
+
+import chess.Attacks;
+import chess.Bitboards;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Solves the endgames in {@link Tablebase.Endgame} by retrograde analysis and
+ * writes the files {@link Tablebase} reads.
+ * <p>
+ * Every arrangement of the pieces, with either side to move, gets an index and
+ * a byte. The positions where the lone king is checkmated are found first.
+ * Working backwards from positions lost in n half-moves, every position the
+ * stronger side could have moved from is won in n + 1; and a position the lone
+ * king could have moved from is lost in n + 2 once every one of its moves is
+ * known to lead to a win for the other side. Whatever is not resolved when
+ * nothing more changes is a draw. Pawn promotions lead into the queen and rook
+ * endgames, which are solved first.
+ * <p>
+ * Moves are worked out from the same attack tables the move generator uses.
+ * The stronger side is always white here, and castling is ignored.
+ * <p>
+ * Run with a directory to write every endgame into it.
+ */
+public final class TablebaseGenerator {
+    // A position not resolved yet; ends up a draw if it never is
+    private static final int UNKNOWN = 254;
+    private static final int STRONG = Tablebase.STRONG_TO_MOVE;
+    private static final int WEAK = Tablebase.WEAK_TO_MOVE;
+
+    private final Tablebase.Endgame endgame;
+    // The kings, then the stronger side's other pieces
+    private final ChessPiece.PieceType[] types;
+    private final int[] squares;
+    private final byte[] values;
+    // Moves a lone king to move has that are not yet known to lose
+    private final byte[] counters;
+    // Wins through promoting, as stored values, for positions with a pawn about to promote
+    private final byte[] promotions;
+
+    private TablebaseGenerator(Tablebase.Endgame endgame) {
+        this.endgame = endgame;
+        ChessPiece.PieceType[] pieces = endgame.pieces();
+        this.types = new ChessPiece.PieceType[2 + pieces.length];
+        types[0] = ChessPiece.PieceType.KING;
+        types[1] = ChessPiece.PieceType.KING;
+        System.arraycopy(pieces, 0, types, 2, pieces.length);
+        this.squares = new int[types.length];
+        this.values = new byte[endgame.size()];
+        this.counters = new byte[endgame.size()];
+        this.promotions = Arrays.asList(pieces).contains(ChessPiece.PieceType.PAWN) ? new byte[endgame.size()] : null;
+    }
+
+    /**
+     * Solves an endgame, and any endgame its pawns can promote into
+     *
+     * @param endgame the endgame to solve
+     * @return one value per position, in the format {@link Tablebase} reads
+     */
+    public static byte[] generate(Tablebase.Endgame endgame) {
+        return generate(endgame, new EnumMap<>(Tablebase.Endgame.class));
+    }
+
+    private static byte[] generate(Tablebase.Endgame endgame, Map<Tablebase.Endgame, byte[]> solved) {
+        byte[] values = solved.get(endgame);
+        if (values == null) {
+            TablebaseGenerator generator = new TablebaseGenerator(endgame);
+            generator.initialize(solved);
+            generator.solve();
+            values = generator.values;
+            solved.put(endgame, values);
+        }
+        return values;
+    }
+
+    /**
+     * Solves endgames and writes each to its file in a directory
+     *
+     * @param directory where to write the files
+     * @param endgames  the endgames to solve
+     * @throws IOException if a file cannot be written
+     */
+    public static void write(Path directory, Tablebase.Endgame... endgames) throws IOException {
+        Files.createDirectories(directory);
+        Map<Tablebase.Endgame, byte[]> solved = new EnumMap<>(Tablebase.Endgame.class);
+        for (Tablebase.Endgame endgame : endgames) {
+            Files.write(directory.resolve(endgame.fileName()), generate(endgame, solved));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: TablebaseGenerator <directory>");
+            return;
+        }
+        Path directory = Path.of(args[0]);
+        Map<Tablebase.Endgame, byte[]> solved = new EnumMap<>(Tablebase.Endgame.class);
+        Files.createDirectories(directory);
+        for (Tablebase.Endgame endgame : Tablebase.Endgame.values()) {
+            long start = System.nanoTime();
+            byte[] values = generate(endgame, solved);
+            Files.write(directory.resolve(endgame.fileName()), values);
+            long wins = 0;
+            int longest = 0;
+            for (int index = STRONG; index < values.length; index += 2) {
+                int value = values[index] & 0xFF;
+                if (value != Tablebase.DRAW && value != Tablebase.ILLEGAL) {
+                    wins++;
+                    longest = Math.max(longest, value - 1);
+                }
+            }
+            System.out.printf("%-5s %,11d won with white to move, longest mate in %d moves, %,d ms%n",
+                    endgame, wins, (longest + 1) / 2, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Marks illegal positions, checkmates and stalemates, counts the lone king's
+     * moves, and finds the wins that come from promoting
+     */
+    private void initialize(Map<Tablebase.Endgame, byte[]> solved) {
+        byte[] queens = null;
+        byte[] rooks = null;
+        if (promotions != null) {
+            queens = generate(Tablebase.Endgame.KQK, solved);
+            rooks = generate(Tablebase.Endgame.KRK, solved);
+        }
+
+        for (int index = 0; index < values.length; index++) {
+            decode(index);
+            if (!isValid()) {
+                values[index] = (byte) Tablebase.ILLEGAL;
+                continue;
+            }
+            long occupied = occupied();
+            long attacked = strongAttacks(occupied & ~Bitboards.bit(squares[1]));
+            boolean inCheck = Bitboards.contains(attacked, squares[1]);
+            if ((index & 1) == STRONG) {
+                // The lone king cannot be in check when the other side is to move
+                values[index] = (byte) (inCheck ? Tablebase.ILLEGAL : UNKNOWN);
+                if (!inCheck && promotions != null) {
+                    promotions[index] = promotionWin(occupied, queens, rooks);
+                }
+                continue;
+            }
+
+            long targets = Attacks.king(squares[1]) & ~attacked;
+            if (targets == 0) {
+                values[index] = (byte) (inCheck ? stored(0) : Tablebase.DRAW);
+            } else if ((targets & occupied) != 0) {
+                // Taking a piece leaves too little to checkmate with
+                values[index] = Tablebase.DRAW;
+            } else {
+                values[index] = (byte) UNKNOWN;
+                counters[index] = (byte) Long.bitCount(targets);
+            }
+        }
+    }
+
+    /**
+     * @return the stored value of the quickest win by promoting the pawn, or 0 if
+     * promoting does not win
+     */
+    private byte promotionWin(long occupied, byte[] queens, byte[] rooks) {
+        int best = 0;
+        for (int i = 2; i < types.length; i++) {
+            int to = squares[i] + 8;
+            if (types[i] != ChessPiece.PieceType.PAWN || Bitboards.row(squares[i]) != 7
+                    || Bitboards.contains(occupied, to)) {
+                continue;
+            }
+            // The lone king is to move after promoting
+            int child = WEAK | squares[0] << 1 | squares[1] << 7 | to << 13;
+            for (byte[] table : new byte[][]{queens, rooks}) {
+                int value = table[child] & 0xFF;
+                if (value != Tablebase.DRAW && value != Tablebase.ILLEGAL && (best == 0 || value + 1 < best)) {
+                    best = value + 1;
+                }
+            }
+        }
+        return (byte) best;
+    }
+
+    /**
+     * Resolves positions outwards from the checkmates, one move at a time. The
+     * lone king's side is always mated an even number of half-moves away.
+     */
+    private void solve() {
+        for (int plies = 0; ; plies += 2) {
+            if (stored(plies + 2) >= UNKNOWN) {
+                throw new IllegalStateException(endgame + " has mates too long to store");
+            }
+            boolean changed = false;
+            int lost = stored(plies);
+            int won = stored(plies + 1);
+            for (int index = WEAK; index < values.length; index += 2) {
+                if ((values[index] & 0xFF) == lost) {
+                    changed |= markWinsBefore(index, won);
+                }
+            }
+            boolean promotionsLeft = false;
+            for (int index = STRONG; promotions != null && index < values.length; index += 2) {
+                int promotion = promotions[index] & 0xFF;
+                if (promotion == won && (values[index] & 0xFF) == UNKNOWN) {
+                    values[index] = (byte) won;
+                    changed = true;
+                }
+                promotionsLeft |= promotion > won;
+            }
+            for (int index = STRONG; index < values.length; index += 2) {
+                if ((values[index] & 0xFF) == won) {
+                    markLossesBefore(index, stored(plies + 2));
+                }
+            }
+            if (!changed && !promotionsLeft) {
+                break;
+            }
+        }
+        for (int index = 0; index < values.length; index++) {
+            if ((values[index] & 0xFF) == UNKNOWN) {
+                values[index] = Tablebase.DRAW;
+            }
+        }
+    }
+
+    /**
+     * Marks every unresolved position the stronger side could have moved from to
+     * reach a lost position as won
+     *
+     * @return true if any position was marked
+     */
+    private boolean markWinsBefore(int index, int won) {
+        decode(index);
+        long occupied = occupied();
+        boolean marked = false;
+        for (int i = 0; i < types.length; i++) {
+            if (i == 1) {
+                continue;
+            }
+            int to = squares[i];
+            for (long from = origins(types[i], to, occupied); from != 0; from &= from - 1) {
+                squares[i] = Long.numberOfTrailingZeros(from);
+                long before = occupied ^ Bitboards.bit(to) ^ (from & -from);
+                if (isValid() && !Bitboards.contains(strongAttacks(before & ~Bitboards.bit(squares[1])), squares[1])) {
+                    int previous = encode(STRONG);
+                    if ((values[previous] & 0xFF) == UNKNOWN) {
+                        values[previous] = (byte) won;
+                        marked = true;
+                    }
+                }
+            }
+            squares[i] = to;
+        }
+        return marked;
+    }
+
+    /**
+     * Counts a won position against every position the lone king could have moved
+     * from to reach it, marking those with no other moves as lost
+     */
+    private void markLossesBefore(int index, int lost) {
+        decode(index);
+        int to = squares[1];
+        for (long from = Attacks.king(to) & ~occupied(); from != 0; from &= from - 1) {
+            squares[1] = Long.numberOfTrailingZeros(from);
+            if (isValid()) {
+                int previous = encode(WEAK);
+                if ((values[previous] & 0xFF) == UNKNOWN && --counters[previous] == 0) {
+                    values[previous] = (byte) lost;
+                }
+            }
+        }
+        squares[1] = to;
+    }
+
+    /**
+     * @return the empty squares a piece of the stronger side could have moved to a
+     * square from, without capturing or promoting
+     */
+    private static long origins(ChessPiece.PieceType type, int square, long occupied) {
+        if (type != ChessPiece.PieceType.PAWN) {
+            // Every other piece moves the same way in both directions
+            return attacks(type, square, occupied) & ~occupied;
+        }
+        long origins = 0;
+        int row = Bitboards.row(square);
+        if (row > 2 && !Bitboards.contains(occupied, square - 8)) {
+            origins |= Bitboards.bit(square - 8);
+            if (row == 4 && !Bitboards.contains(occupied, square - 16)) {
+                origins |= Bitboards.bit(square - 16);
+            }
+        }
+        return origins;
+    }
+
+    private long strongAttacks(long occupied) {
+        long attacks = Attacks.king(squares[0]);
+        for (int i = 2; i < types.length; i++) {
+            attacks |= attacks(types[i], squares[i], occupied);
+        }
+        return attacks;
+    }
+
+    private static long attacks(ChessPiece.PieceType type, int square, long occupied) {
+        return switch (type) {
+            case KING -> Attacks.king(square);
+            case QUEEN -> Attacks.queen(square, occupied);
+            case BISHOP -> Attacks.bishop(square, occupied);
+            case KNIGHT -> Attacks.knight(square);
+            case ROOK -> Attacks.rook(square, occupied);
+            case PAWN -> Attacks.pawn(ChessGame.TeamColor.WHITE, square);
+        };
+    }
+
+    /**
+     * @return true if no two pieces share a square, the kings are not next to each
+     * other, and no pawn is on the first or last row
+     */
+    private boolean isValid() {
+        long occupied = 0;
+        for (int i = 0; i < types.length; i++) {
+            long bit = Bitboards.bit(squares[i]);
+            int row = Bitboards.row(squares[i]);
+            if ((occupied & bit) != 0 || types[i] == ChessPiece.PieceType.PAWN && (row == 1 || row == 8)) {
+                return false;
+            }
+            occupied |= bit;
+        }
+        return !Bitboards.contains(Attacks.king(squares[0]), squares[1]);
+    }
+
+    private long occupied() {
+        long occupied = 0;
+        for (int square : squares) {
+            occupied |= Bitboards.bit(square);
+        }
+        return occupied;
+    }
+
+    // Index: bit 0 is the side to move, then six bits per piece's square
+    private void decode(int index) {
+        for (int i = 0; i < squares.length; i++) {
+            squares[i] = (index >>> (1 + 6 * i)) & 0x3F;
+        }
+    }
+
+    private int encode(int toMove) {
+        int index = toMove;
+        for (int i = 0; i < squares.length; i++) {
+            index |= squares[i] << (1 + 6 * i);
+        }
+        return index;
+    }
+
+    // The stored value of a position the side to move wins or loses in the given half-moves
+    private static int stored(int plies) {
+        return plies + 1;
+    }
+}
@@ -0,0 +1,215 @@
+package chess.engine;
+
+import chess.Move;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Remembers what searches found about positions they have already searched,
+ * so a position reached again by a different order of moves, or searched
+ * again one iteration deeper, can reuse the result or at least try the best
+ * move first.
+ * <p>
+ * The table lives outside the Java heap, in direct byte buffers, so even a
+ * table of several gigabytes is a handful of objects to the garbage collector.
+ * It is split into buckets of four entries, one cache line each, and a
+ * position can be stored in any entry of the bucket its Zobrist key picks.
+ * <p>
+ * Each entry is two longs: the data (see {@link #probe}) and the key XORed
+ * with the data. An entry only counts as found if the two longs XOR back to
+ * the key being looked up, so several search threads can share a table
+ * without locks: an entry half written by one thread while another reads it
+ * fails the check and is treated as missing, just like an entry for a
+ * different position.
+ * <p>
+ * When a bucket is full, the entry replaced is the one worth least: entries
+ * from earlier searches (see {@link #newSearch}) go before entries from this
+ * one, and shallow entries before deep ones.
+ */
+public final class TranspositionTable {
+    /**
+     * The score is exact
+     */
+    public static final int EXACT = 1;
+
+    /**
+     * The score is at least the stored score; the search failed high
+     */
+    public static final int LOWER = 2;
+
+    /**
+     * The score is at most the stored score; the search failed low
+     */
+    public static final int UPPER = 3;
+
+    /**
+     * The largest table that can be made
+     */
+    public static final int MAX_MEGABYTES = 64 * 1024;
+
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_BYTES = BUCKET_ENTRIES * ENTRY_BYTES;
+    // A direct buffer holds at most 2 GB, so big tables are split into 1 GB chunks
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+    // How many plies of depth one search of age is worth when picking an entry to replace
+    private static final int AGE_WEIGHT = 4;
+
+    // Opaque reads and writes of a long are never torn, and cost no more than plain ones
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+
+    private final ByteBuffer[] chunks;
+    private final long mask;
+    private volatile int age;
+
+    /**
+     * Creates an empty table taking up to the given amount of memory. The number
+     * of entries is rounded down to a power of two. The memory is outside the heap,
+     * so -XX:MaxDirectMemorySize must allow for it.
+     *
+     * @param megabytes the most memory to use
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1 || megabytes > MAX_MEGABYTES) {
+            throw new IllegalArgumentException("A transposition table must be 1 to " + MAX_MEGABYTES + " MB");
+        }
+        long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / BUCKET_BYTES);
+        long bytes = buckets * BUCKET_BYTES;
+        int chunkBytes = (int) Math.min(bytes, 1L << CHUNK_SHIFT);
+        this.chunks = new ByteBuffer[(int) (bytes / chunkBytes)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(chunkBytes);
+        }
+        this.mask = buckets - 1;
+    }
+
+    /**
+     * Looks up a position
+     *
+     * @param key the position's Zobrist key
+     * @return the entry's data, to be read with {@link #move}, {@link #score},
+     * {@link #depth} and {@link #bound}, or 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        long bucket = bucketOffset(key);
+        ByteBuffer chunk = chunks[(int) (bucket >>> CHUNK_SHIFT)];
+        int offset = (int) (bucket & CHUNK_MASK);
+        for (int i = 0; i < BUCKET_ENTRIES; i++, offset += ENTRY_BYTES) {
+            long data = (long) LONGS.getOpaque(chunk, offset + Long.BYTES);
+            if (((long) LONGS.getOpaque(chunk, offset) ^ data) == key && data != 0) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores what a search found about a position. An entry for the same position
+     * from this search is kept instead if it was searched deeper and the new score
+     * is only a bound.
+     *
+     * @param key   the position's Zobrist key
+     * @param depth how deep the position was searched
+     * @param bound whether the score is {@link #EXACT}, a {@link #LOWER} or an {@link #UPPER} bound
+     * @param score the score, with mate scores counted from this position
+     * @param move  the best move found, or Move.NONE
+     */
+    public void store(long key, int depth, int bound, int score, int move) {
+        long bucket = bucketOffset(key);
+        ByteBuffer chunk = chunks[(int) (bucket >>> CHUNK_SHIFT)];
+        int start = (int) (bucket & CHUNK_MASK);
+        int currentAge = age;
+
+        int target = start;
+        int lowestWorth = Integer.MAX_VALUE;
+        for (int i = 0, offset = start; i < BUCKET_ENTRIES; i++, offset += ENTRY_BYTES) {
+            long old = (long) LONGS.getOpaque(chunk, offset + Long.BYTES);
+            if (((long) LONGS.getOpaque(chunk, offset) ^ old) == key && old != 0) {
+                if (age(old) == currentAge && depth < depth(old) && bound != EXACT) {
+                    return;
+                }
+                if (move == Move.NONE) {
+                    // Keep the best move from an earlier search of the position
+                    move = move(old);
+                }
+                target = offset;
+                break;
+            }
+            int worth = old == 0 ? Integer.MIN_VALUE
+                    : depth(old) - AGE_WEIGHT * ((currentAge - age(old)) & 0xFF);
+            if (worth < lowestWorth) {
+                lowestWorth = worth;
+                target = offset;
+            }
+        }
+
+        long data = (move & 0xFFFFL)
+                | (score & 0xFFFFL) << 16
+                | (long) depth << 32
+                | (long) bound << 40
+                | (long) currentAge << 42;
+        LONGS.setOpaque(chunk, target, key ^ data);
+        LONGS.setOpaque(chunk, target + Long.BYTES, data);
+    }
+
+    /**
+     * Marks the start of a new search, so entries left by earlier ones are
+     * replaced before the new search's own
+     */
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    /**
+     * Empties the table
+     */
+    public void clear() {
+        for (ByteBuffer chunk : chunks) {
+            for (int offset = 0; offset < chunk.capacity(); offset += Long.BYTES) {
+                LONGS.setOpaque(chunk, offset, 0L);
+            }
+        }
+    }
+
+    /**
+     * @return the best move in an entry, or Move.NONE
+     */
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    /**
+     * @return the score in an entry
+     */
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    /**
+     * @return how deep the entry's position was searched
+     */
+    public static int depth(long data) {
+        return (int) ((data >>> 32) & 0xFF);
+    }
+
+    /**
+     * @return whether the entry's score is {@link #EXACT}, a {@link #LOWER} or an {@link #UPPER} bound
+     */
+    public static int bound(long data) {
+        return (int) ((data >>> 40) & 0x3);
+    }
+
+    private static int age(long data) {
+        return (int) ((data >>> 42) & 0xFF);
+    }
+
+    // The byte offset of a key's bucket, across all the chunks
+    private long bucketOffset(long key) {
+        return (key & mask) * BUCKET_BYTES;
+    }
+}
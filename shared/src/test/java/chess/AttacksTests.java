@@ -0,0 +1,39 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class AttacksTests {
+
+    @Test
+    public void testSliderAttacksMatchWalkingRays() {
+        Random random = new Random(310);
+        int[][] rookSteps = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        int[][] bishopSteps = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        for (int trial = 0; trial < 2000; trial++) {
+            // Sparse and dense boards both
+            long occupied = random.nextLong() & random.nextLong() & (trial % 2 == 0 ? random.nextLong() : -1L);
+            int square = random.nextInt(64);
+            Assertions.assertEquals(walk(square, occupied, rookSteps), Attacks.rook(square, occupied));
+            Assertions.assertEquals(walk(square, occupied, bishopSteps), Attacks.bishop(square, occupied));
+        }
+    }
+
+    private static long walk(int square, long occupied, int[][] steps) {
+        long attacks = Bitboards.EMPTY;
+        for (int[] step : steps) {
+            int row = Bitboards.row(square) + step[0];
+            int col = Bitboards.column(square) + step[1];
+            for (; row >= 1 && row <= 8 && col >= 1 && col <= 8; row += step[0], col += step[1]) {
+                int target = Bitboards.square(row, col);
+                attacks |= Bitboards.bit(target);
+                if (Bitboards.contains(occupied, target)) {
+                    break;
+                }
+            }
+        }
+        return attacks;
+    }
+}
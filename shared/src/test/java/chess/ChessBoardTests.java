@@ -0,0 +1,216 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class ChessBoardTests {
+
+    @Test
+    public void testBitboardsMatchSquares() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+
+        Assertions.assertEquals(32, Bitboards.count(board.getOccupied()));
+        Assertions.assertEquals(0xFFFFL, board.getTeamPieces(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(0xFFFFL << 48, board.getTeamPieces(ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(Bitboards.bit(Bitboards.square(1, 5)),
+                board.getPieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        Assertions.assertEquals(Bitboards.square(8, 5), board.getKingSquare(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    public void testKingSquareFollowsKing() {
+        ChessBoard board = new ChessBoard();
+        Assertions.assertEquals(ChessBoard.NO_SQUARE, board.getKingSquare(ChessGame.TeamColor.WHITE));
+
+        board.addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(2, 6)));
+        Assertions.assertEquals(Bitboards.square(2, 6), board.getKingSquare(ChessGame.TeamColor.WHITE));
+
+        board.unmakeMove();
+        Assertions.assertEquals(Bitboards.square(1, 5), board.getKingSquare(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    public void testAddPieceReplacesBitboards() {
+        ChessBoard board = new ChessBoard();
+        ChessPosition position = new ChessPosition(4, 4);
+        board.addPiece(position, new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        board.addPiece(position, new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+
+        Assertions.assertEquals(Bitboards.EMPTY, board.getTeamPieces(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(Bitboards.bit(Bitboards.square(position)),
+                board.getPieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+
+        board.addPiece(position, null);
+        Assertions.assertEquals(Bitboards.EMPTY, board.getOccupied());
+    }
+
+    @Test
+    public void testSerializedBoardRebuildsBitboards() {
+        ChessGame game = new ChessGame();
+        Gson gson = new Gson();
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+
+        Assertions.assertEquals(game.getBoard(), copy.getBoard());
+        Assertions.assertEquals(game.getBoard().getOccupied(), copy.getBoard().getOccupied());
+        Assertions.assertEquals(game.getBoard().hashCode(), copy.getBoard().hashCode());
+    }
+
+    @Test
+    public void testUnmakeMoveRestoresCaptureAndPromotion() {
+        ChessBoard board = new ChessBoard();
+        ChessPosition pawnPosition = new ChessPosition(7, 2);
+        ChessPosition rookPosition = new ChessPosition(8, 1);
+        ChessPiece pawn = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        board.addPiece(pawnPosition, pawn);
+        board.addPiece(rookPosition, new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        ChessBoard original = new ChessBoard(board);
+
+        board.makeMove(new ChessMove(pawnPosition, rookPosition, ChessPiece.PieceType.QUEEN));
+        Assertions.assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN),
+                board.getPiece(rookPosition));
+        Assertions.assertEquals(Bitboards.EMPTY, board.getTeamPieces(ChessGame.TeamColor.BLACK));
+
+        board.unmakeMove();
+        Assertions.assertEquals(original, board);
+        Assertions.assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN),
+                board.getPiece(pawnPosition));
+        Assertions.assertThrows(IllegalStateException.class, board::unmakeMove);
+    }
+
+    @Test
+    public void testBoardsShareImmutablePieces() {
+        ChessBoard board = new ChessBoard();
+        ChessPosition position = new ChessPosition(2, 2);
+        ChessPiece pawn = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        board.addPiece(position, pawn);
+        ChessBoard copy = new ChessBoard(board);
+
+        Assertions.assertSame(board.getPiece(position), copy.getPiece(position));
+        Assertions.assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN),
+                board.getPiece(position));
+    }
+
+    @Test
+    public void testSerializedBoardUsesSharedPieces() {
+        Gson gson = new Gson();
+        ChessGame copy = gson.fromJson(gson.toJson(new ChessGame()), ChessGame.class);
+        ChessPosition king = new ChessPosition(1, 5);
+
+        copy.getBoard().getOccupied();
+        Assertions.assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING),
+                copy.getBoard().getPiece(king));
+    }
+
+    @Test
+    public void testKeyFollowsMoves() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        long start = board.getKey();
+
+        board.makeMove(ChessMove.fromAlgebraicNotation("g1f3"));
+        board.makeMove(ChessMove.fromAlgebraicNotation("g8f6"));
+        Assertions.assertNotEquals(start, board.getKey());
+        board.makeMove(ChessMove.fromAlgebraicNotation("f3g1"));
+        board.makeMove(ChessMove.fromAlgebraicNotation("f6g8"));
+        Assertions.assertEquals(start, board.getKey());
+
+        board.makeMove(ChessMove.fromAlgebraicNotation("e2e4"));
+        long afterMove = board.getKey();
+        board.unmakeMove();
+        Assertions.assertEquals(start, board.getKey());
+
+        Gson gson = new Gson();
+        board.makeMove(ChessMove.fromAlgebraicNotation("e2e4"));
+        ChessBoard copy = gson.fromJson(gson.toJson(board), ChessBoard.class);
+        Assertions.assertEquals(afterMove, copy.getKey());
+        Assertions.assertEquals(afterMove, new ChessBoard(board).getKey());
+    }
+
+    @Test
+    public void testPlayedMovesKeepNoUndo() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        board.makeMove(ChessMove.fromAlgebraicNotation("e2e4"));
+        board.playMove(ChessMove.fromAlgebraicNotation("e7e5"));
+
+        board.unmakeMove();
+        Assertions.assertNull(board.getPiece(new ChessPosition(4, 5)));
+        Assertions.assertNotNull(board.getPiece(new ChessPosition(5, 5)));
+        Assertions.assertThrows(IllegalStateException.class, board::unmakeMove);
+    }
+
+    @Test
+    public void testScoresFollowMoves() {
+        Gson gson = new Gson();
+        ChessBoard board = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1")
+                .getBoard();
+        ChessBoard original = new ChessBoard(board);
+        Random random = new Random(7);
+        ChessGame.TeamColor color = ChessGame.TeamColor.WHITE;
+        MoveList moves = new MoveList();
+        int made = 0;
+        for (; made < 200; made++) {
+            moves.clear();
+            MoveGenerator.legalMoves(board, color, moves);
+            if (moves.isEmpty()) {
+                break;
+            }
+            board.makeMove(moves.get(random.nextInt(moves.size())));
+            color = ChessBoard.opponent(color);
+
+            // A deserialized board adds its scores up from scratch
+            ChessBoard rebuilt = gson.fromJson(gson.toJson(board), ChessBoard.class);
+            Assertions.assertEquals(rebuilt.getMiddlegameScore(), board.getMiddlegameScore());
+            Assertions.assertEquals(rebuilt.getEndgameScore(), board.getEndgameScore());
+            Assertions.assertEquals(rebuilt.getPhase(), board.getPhase());
+        }
+        for (int i = 0; i < made; i++) {
+            board.unmakeMove();
+        }
+        Assertions.assertEquals(original.getMiddlegameScore(), board.getMiddlegameScore());
+        Assertions.assertEquals(original.getEndgameScore(), board.getEndgameScore());
+        Assertions.assertEquals(original.getPhase(), board.getPhase());
+
+        ChessBoard start = new ChessBoard();
+        start.resetBoard();
+        Assertions.assertEquals(0, start.getMiddlegameScore());
+        Assertions.assertEquals(PieceSquareTables.MAX_PHASE, start.getPhase());
+    }
+
+    @Test
+    public void testUnmakeRestoresCastlingAndEnPassant() {
+        ChessBoard board = ChessGame.fromFen("r3k2r/8/8/8/3p4/8/4P3/R3K2R w KQkq - 7 30").getBoard();
+        ChessBoard original = new ChessBoard(board);
+
+        board.makeMove(ChessMove.fromAlgebraicNotation("e2e4"));
+        Assertions.assertEquals(Bitboards.square(3, 5), board.getEnPassantSquare());
+        Assertions.assertEquals(0, board.getHalfmoveClock());
+        board.makeMove(ChessMove.fromAlgebraicNotation("d4e3"));
+        Assertions.assertNull(board.getPiece(new ChessPosition(4, 5)));
+        Assertions.assertEquals(ChessBoard.NO_SQUARE, board.getEnPassantSquare());
+        board.makeMove(ChessMove.fromAlgebraicNotation("e1g1"));
+        Assertions.assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK),
+                board.getPiece(new ChessPosition(1, 6)));
+        Assertions.assertEquals(ChessBoard.BLACK_KINGSIDE | ChessBoard.BLACK_QUEENSIDE, board.getCastlingRights());
+        Assertions.assertEquals(1, board.getHalfmoveClock());
+
+        // The state word is saved with the board
+        Gson gson = new Gson();
+        ChessBoard copy = gson.fromJson(gson.toJson(board), ChessBoard.class);
+        Assertions.assertEquals(board.getCastlingRights(), copy.getCastlingRights());
+        Assertions.assertEquals(board.getHalfmoveClock(), copy.getHalfmoveClock());
+
+        board.unmakeMove();
+        board.unmakeMove();
+        board.unmakeMove();
+        Assertions.assertEquals(original, board);
+        Assertions.assertEquals(original.getStateKey(), board.getStateKey());
+        Assertions.assertEquals(7, board.getHalfmoveClock());
+        Assertions.assertEquals(0xF, board.getCastlingRights());
+    }
+}
@@ -0,0 +1,125 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ChessGameTests {
+
+    private static void play(ChessGame game, String... moves) throws InvalidMoveException {
+        for (String move : moves) {
+            game.makeMove(ChessMove.fromAlgebraicNotation(move));
+        }
+    }
+
+    @Test
+    public void testGameStatusAfterMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(ChessGame.GameStatus.NORMAL, game.getGameStatus());
+
+        play(game, "e2e4", "f7f6", "d2d4", "g7g5");
+        Assertions.assertEquals(ChessGame.GameStatus.NORMAL, game.getGameStatus());
+
+        play(game, "d1h5");
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, game.getGameStatus());
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+        Assertions.assertFalse(game.inProgress);
+    }
+
+    @Test
+    public void testGameStatusResetWithBoard() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "e2e4", "f7f5", "a2a3");
+        Assertions.assertEquals(ChessGame.GameStatus.NORMAL, game.getGameStatus());
+
+        play(game, "e8f7", "d1h5");
+        Assertions.assertEquals(ChessGame.GameStatus.CHECK, game.getGameStatus());
+
+        game.setBoard(new ChessGame().getBoard());
+        Assertions.assertEquals(ChessGame.GameStatus.NORMAL, game.getGameStatus());
+    }
+
+    @Test
+    public void testGameStatusFollowsBoardChanges() {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(ChessGame.GameStatus.NORMAL, game.getGameStatus());
+
+        // A knight on d3 checks the white king
+        game.getBoard().addPiece(new ChessPosition(3, 4),
+                new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        Assertions.assertEquals(ChessGame.GameStatus.CHECK, game.getGameStatus());
+    }
+
+    @Test
+    public void testFenRoundTrip() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        Assertions.assertEquals(new ChessGame().getBoard(), game.getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+
+        play(game, "e2e4");
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", game.toFen());
+        ChessGame copy = ChessGame.fromFen(game.toFen());
+        Assertions.assertEquals(game.getBoard(), copy.getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, copy.getTeamTurn());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8 w - - 0 1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("9/8/8/8/8/8/8/8 w"));
+    }
+
+    @Test
+    public void testKeyIncludesSideToMove() throws InvalidMoveException {
+        ChessGame moved = new ChessGame();
+        play(moved, "e2e4", "e7e5", "g1f3");
+        ChessGame transposed = new ChessGame();
+        play(transposed, "g1f3", "e7e5", "e2e4");
+
+        Assertions.assertEquals(moved.getKey(), transposed.getKey());
+        Assertions.assertEquals(moved, transposed);
+        Assertions.assertEquals(moved.hashCode(), transposed.hashCode());
+
+        transposed.setTeamTurn(ChessGame.TeamColor.WHITE);
+        Assertions.assertEquals(moved.getBoard().getKey(), transposed.getBoard().getKey());
+        Assertions.assertNotEquals(moved.getKey(), transposed.getKey());
+        Assertions.assertNotEquals(moved, transposed);
+    }
+
+    @Test
+    public void testThreefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        Assertions.assertEquals(2, game.getRepetitionCount());
+        Assertions.assertEquals(ChessGame.GameStatus.NORMAL, game.getGameStatus());
+
+        // The history is saved with the game
+        Gson gson = new Gson();
+        game = gson.fromJson(gson.toJson(game), ChessGame.class);
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8");
+        Assertions.assertEquals(3, game.getRepetitionCount());
+        Assertions.assertEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, game.getGameStatus());
+        Assertions.assertFalse(game.inProgress);
+    }
+
+    @Test
+    public void testIrreversibleMoveClearsHistory() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "g1f3", "g8f6", "f3g1", "f6g8", "e2e4");
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        play(game, "e7e5", "g1f3", "g8f6", "f3g1", "f6g8");
+        Assertions.assertEquals(4, game.getHalfmoveClock());
+        Assertions.assertEquals(2, game.getRepetitionCount());
+    }
+
+    @Test
+    public void testFiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 99 80");
+        Assertions.assertEquals(99, game.getHalfmoveClock());
+        play(game, "a1a7");
+        Assertions.assertEquals(ChessGame.GameStatus.FIFTY_MOVE_RULE, game.getGameStatus());
+        Assertions.assertFalse(game.inProgress);
+
+        // Checkmate on the hundredth half-move still counts as checkmate
+        game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R3K3 w - - 99 80");
+        play(game, "a1a8");
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, game.getGameStatus());
+    }
+}
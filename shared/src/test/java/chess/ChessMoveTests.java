@@ -0,0 +1,53 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ChessMoveTests {
+
+    @Test
+    public void testSharedPositions() {
+        Assertions.assertSame(ChessPosition.of(3, 7), ChessPosition.of(3, 7));
+        Assertions.assertSame(ChessPosition.of(3, 7), ChessPosition.of(Bitboards.square(3, 7)));
+        Assertions.assertEquals(new ChessPosition(3, 7), ChessPosition.of(3, 7));
+        Assertions.assertEquals(new ChessPosition(3, 7).hashCode(), ChessPosition.of(3, 7).hashCode());
+        Assertions.assertFalse(ChessPosition.of(0, 9).isOnBoard());
+    }
+
+    @Test
+    public void testSharedMoves() {
+        ChessPosition start = ChessPosition.of(7, 2);
+        ChessPosition end = ChessPosition.of(8, 1);
+
+        Assertions.assertSame(ChessMove.of(start, end, null), ChessMove.of(start, end, null));
+        Assertions.assertSame(ChessMove.of(start, end, ChessPiece.PieceType.KNIGHT),
+                ChessMove.of(new ChessPosition(7, 2), new ChessPosition(8, 1), ChessPiece.PieceType.KNIGHT));
+        Assertions.assertEquals(new ChessMove(start, end, ChessPiece.PieceType.QUEEN),
+                ChessMove.of(start, end, ChessPiece.PieceType.QUEEN));
+        Assertions.assertEquals(new ChessMove(start, end).hashCode(), ChessMove.of(start, end, null).hashCode());
+
+        // No piece moves from b7 to h1 in one step with a promotion, so it is not shared
+        ChessMove unusual = ChessMove.of(start, ChessPosition.of(1, 8), ChessPiece.PieceType.QUEEN);
+        Assertions.assertEquals(new ChessMove(start, ChessPosition.of(1, 8), ChessPiece.PieceType.QUEEN), unusual);
+    }
+
+    @Test
+    public void testPackedMoves() {
+        ChessMove promotion = new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(1, 6), ChessPiece.PieceType.KNIGHT);
+        int packed = Move.of(promotion);
+
+        Assertions.assertEquals(Bitboards.square(2, 5), Move.from(packed));
+        Assertions.assertEquals(Bitboards.square(1, 6), Move.to(packed));
+        Assertions.assertEquals(ChessPiece.PieceType.KNIGHT, Move.promotion(packed));
+        Assertions.assertSame(ChessMove.of(promotion.getStartPosition(), promotion.getEndPosition(),
+                ChessPiece.PieceType.KNIGHT), Move.toChessMove(packed));
+
+        MoveList moves = new MoveList(1);
+        moves.add(Move.of(0, 8));
+        moves.add(packed | Move.CAPTURE);
+        Assertions.assertEquals(2, moves.size());
+        Assertions.assertTrue(moves.contains(packed));
+        moves.clear();
+        Assertions.assertTrue(moves.isEmpty());
+    }
+}
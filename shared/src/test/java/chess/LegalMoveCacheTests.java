@@ -0,0 +1,68 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+
+public class LegalMoveCacheTests {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    public void testMatchesValidMoves() {
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        LegalMoveCache cache = new LegalMoveCache(16);
+        for (int square = 0; square < 64; square++) {
+            ChessPosition position = ChessPosition.of(square);
+            var expected = game.validMoves(position);
+            var actual = cache.validMoves(game, position);
+            if (expected == null) {
+                Assertions.assertNull(actual);
+            } else {
+                Assertions.assertEquals(new HashSet<>(expected), new HashSet<>(actual), "Moves from " + position);
+            }
+        }
+        // One position for each team, generated once each
+        Assertions.assertEquals(2, cache.misses());
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(30, cache.hits());
+    }
+
+    @Test
+    public void testPlaysLikeGame() throws InvalidMoveException {
+        Random random = new Random(7);
+        LegalMoveCache cache = new LegalMoveCache(64);
+        for (int games = 0; games < 20; games++) {
+            ChessGame expected = new ChessGame();
+            ChessGame actual = new ChessGame();
+            for (int ply = 0; ply < 60 && expected.inProgress; ply++) {
+                ChessMove move = expected.legalMoves(expected.getTeamTurn()).stream()
+                        .skip(random.nextInt(expected.legalMoves(expected.getTeamTurn()).size()))
+                        .findFirst().orElseThrow();
+                Assertions.assertTrue(cache.isLegal(actual, move));
+                expected.makeMove(move);
+                actual.makeMove(move, cache);
+                Assertions.assertEquals(expected, actual);
+                Assertions.assertEquals(expected.getGameStatus(), actual.getGameStatus());
+            }
+        }
+        Assertions.assertTrue(cache.hits() > 0);
+        Assertions.assertTrue(cache.evictions() > 0);
+        Assertions.assertTrue(cache.size() <= cache.capacity());
+    }
+
+    @Test
+    public void testRejectsIllegalMoves() {
+        ChessGame game = new ChessGame();
+        LegalMoveCache cache = new LegalMoveCache(1);
+
+        Assertions.assertTrue(cache.isLegal(game, ChessMove.fromAlgebraicNotation("e2e4")));
+        Assertions.assertFalse(cache.isLegal(game, ChessMove.fromAlgebraicNotation("e2e5")));
+        Assertions.assertFalse(cache.isLegal(game, ChessMove.fromAlgebraicNotation("e7e5")));
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(ChessMove.fromAlgebraicNotation("g1g3"), cache));
+        Assertions.assertEquals(1, cache.capacity());
+        Assertions.assertEquals(1, cache.misses());
+    }
+}
@@ -0,0 +1,131 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class MoveGeneratorTests {
+
+    @Test
+    public void testMatchesTryingEveryPieceMove() throws InvalidMoveException {
+        Random random = new Random(240);
+        for (int gameNumber = 0; gameNumber < 40; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 120; ply++) {
+                ChessGame.TeamColor turn = game.getTeamTurn();
+                List<ChessMove> legal = new ArrayList<>(game.legalMoves(turn));
+                Assertions.assertEquals(bruteForceMoves(game.getBoard(), turn), new HashSet<>(legal));
+                Assertions.assertEquals(legal.size(), new HashSet<>(legal).size(), "Duplicate moves");
+                if (legal.isEmpty()) {
+                    break;
+                }
+                game.makeMove(legal.get(random.nextInt(legal.size())));
+            }
+        }
+    }
+
+    @Test
+    public void testIsLegalMatchesLegalMoves() throws InvalidMoveException {
+        Random random = new Random(150);
+        ChessPiece.PieceType[] promotions = {null, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KNIGHT};
+        for (int gameNumber = 0; gameNumber < 10; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 120; ply++) {
+                List<ChessMove> legal = new ArrayList<>(game.legalMoves(game.getTeamTurn()));
+                if (legal.isEmpty()) {
+                    break;
+                }
+                // Every legal move, every move that would be legal but for check, and random moves
+                for (ChessMove move : legal) {
+                    Assertions.assertTrue(game.isLegal(move), move.toString());
+                }
+                for (ChessPosition position : game.getTeamPositions(game.getTeamTurn())) {
+                    for (ChessMove move : game.getBoard().getPiece(position).pieceMoves(game.getBoard(), position)) {
+                        Assertions.assertEquals(legal.contains(move), game.isLegal(move), move.toString());
+                    }
+                }
+                for (int i = 0; i < 200; i++) {
+                    ChessMove move = ChessMove.of(ChessPosition.of(random.nextInt(64)), ChessPosition.of(random.nextInt(64)),
+                            promotions[random.nextInt(promotions.length)]);
+                    Assertions.assertEquals(legal.contains(move), game.isLegal(move), move.toString());
+                }
+                game.makeMove(legal.get(random.nextInt(legal.size())));
+            }
+        }
+    }
+
+    private static Set<ChessMove> bruteForceMoves(ChessBoard board, ChessGame.TeamColor turn) {
+        Set<ChessMove> moves = new HashSet<>();
+        for (int square = 0; square < 64; square++) {
+            ChessPosition position = ChessPosition.of(square);
+            ChessPiece piece = board.getPiece(position);
+            if (piece == null || piece.getTeamColor() != turn) {
+                continue;
+            }
+            for (ChessMove move : piece.pieceMoves(board, position)) {
+                board.makeMove(move);
+                if (!board.isInCheck(turn)) {
+                    moves.add(move);
+                }
+                board.unmakeMove();
+            }
+        }
+        addSpecialMoves(board, turn, moves);
+        return moves;
+    }
+
+    // Castling and en passant, which pieceMoves leaves out, worked out the long way
+    private static void addSpecialMoves(ChessBoard board, ChessGame.TeamColor turn, Set<ChessMove> moves) {
+        boolean white = turn == ChessGame.TeamColor.WHITE;
+        ChessGame.TeamColor enemy = white ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        int row = white ? 1 : 8;
+        int rights = board.getCastlingRights() >> (white ? 0 : 2);
+        if ((rights & 1) != 0 && empty(board, row, 6, 7) && safe(board, enemy, row, 5, 6, 7)) {
+            moves.add(new ChessMove(new ChessPosition(row, 5), new ChessPosition(row, 7), null));
+        }
+        if ((rights & 2) != 0 && empty(board, row, 2, 3, 4) && safe(board, enemy, row, 3, 4, 5)) {
+            moves.add(new ChessMove(new ChessPosition(row, 5), new ChessPosition(row, 3), null));
+        }
+
+        int target = board.getEnPassantSquare();
+        if (target == ChessBoard.NO_SQUARE || Bitboards.row(target) != (white ? 6 : 3)) {
+            return;
+        }
+        int pawnRow = Bitboards.row(target) + (white ? -1 : 1);
+        for (int col = Bitboards.column(target) - 1; col <= Bitboards.column(target) + 1; col += 2) {
+            if (col < 1 || col > 8 || !new ChessPiece(turn, ChessPiece.PieceType.PAWN)
+                    .equals(board.getPiece(new ChessPosition(pawnRow, col)))) {
+                continue;
+            }
+            ChessMove move = new ChessMove(new ChessPosition(pawnRow, col), ChessPosition.of(target), null);
+            board.makeMove(move);
+            if (!board.isInCheck(turn)) {
+                moves.add(move);
+            }
+            board.unmakeMove();
+        }
+    }
+
+    private static boolean empty(ChessBoard board, int row, int... cols) {
+        for (int col : cols) {
+            if (board.getPiece(new ChessPosition(row, col)) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean safe(ChessBoard board, ChessGame.TeamColor enemy, int row, int... cols) {
+        for (int col : cols) {
+            if (board.isAttacked(Bitboards.square(row, col), enemy)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
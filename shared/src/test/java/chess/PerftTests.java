@@ -0,0 +1,46 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+public class PerftTests {
+
+    @Test
+    public void testSuiteCounts() {
+        for (Perft.Position position : Perft.SUITE) {
+            ChessGame game = ChessGame.fromFen(position.fen());
+            Assertions.assertEquals(position.nodes(), Perft.perft(game, position.depth()), position.name());
+        }
+    }
+
+    @Test
+    public void testDivideAddsUpAndLeavesBoard() {
+        ChessGame game = new ChessGame();
+        ChessBoard original = new ChessBoard(game.getBoard());
+
+        Map<ChessMove, Long> divide = Perft.divide(game, 3);
+        Assertions.assertEquals(20, divide.size());
+        Assertions.assertEquals(8902, divide.values().stream().mapToLong(Long::longValue).sum());
+        Assertions.assertEquals(original, game.getBoard());
+    }
+
+    @Test
+    public void testParallelCountsMatch() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ChessGame game = new ChessGame();
+            ChessBoard original = new ChessBoard(game.getBoard());
+            Assertions.assertEquals(197281, Perft.perft(game, 4, pool));
+            Assertions.assertEquals(original, game.getBoard());
+
+            List<ChessGame> games = List.of(new ChessGame(), ChessGame.fromFen("8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1"));
+            Assertions.assertArrayEquals(new long[]{197281, 23527}, Perft.perft(games, 4, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
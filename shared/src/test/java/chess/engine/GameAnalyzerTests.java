@@ -0,0 +1,72 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class GameAnalyzerTests {
+
+    private static ChessGame play(ChessGame game, String... moves) throws InvalidMoveException {
+        for (String move : moves) {
+            game.makeMove(ChessMove.fromAlgebraicNotation(move));
+        }
+        return game;
+    }
+
+    @Test
+    public void testGameKeepsItsMoves() throws InvalidMoveException {
+        ChessGame game = play(new ChessGame(), "e2e4", "e7e5", "g1f3");
+        ChessGame loaded = new Gson().fromJson(new Gson().toJson(game), ChessGame.class);
+
+        Assertions.assertEquals(ChessGame.START_FEN, loaded.getStartFen());
+        Assertions.assertEquals(List.of(ChessMove.fromAlgebraicNotation("e2e4"),
+                ChessMove.fromAlgebraicNotation("e7e5"),
+                ChessMove.fromAlgebraicNotation("g1f3")), loaded.getMoves());
+
+        String fen = "4k3/8/8/8/8/8/4P3/4K3 b - - 0 1";
+        ChessGame fromFen = play(ChessGame.fromFen(fen), "e8d7");
+        Assertions.assertEquals(fen, fromFen.getStartFen());
+        Assertions.assertEquals(1, fromFen.getMoves().size());
+
+        // Setting the turn starts over from the position the next move is made from
+        fromFen.setTeamTurn(ChessGame.TeamColor.WHITE);
+        Assertions.assertEquals(List.of(), fromFen.getMoves());
+        Assertions.assertEquals("8/3k4/8/8/8/8/4P3/4K3 w - - 1 1", fromFen.getStartFen());
+        play(fromFen, "e2e4");
+        Assertions.assertEquals("8/3k4/8/8/8/8/4P3/4K3 w - - 1 1", fromFen.getStartFen());
+    }
+
+    @Test
+    public void testFlagsBlunder() throws InvalidMoveException {
+        ChessGame game = play(new ChessGame(), "e2e4", "e7e5", "d1h5", "b8c6", "h5f7", "e8f7");
+        List<GameAnalyzer.MoveAnalysis> analysis =
+                new GameAnalyzer(SearchLimits.depth(4), new TranspositionTable(8)).analyze(game);
+
+        Assertions.assertEquals(6, analysis.size());
+        GameAnalyzer.MoveAnalysis sacrifice = analysis.get(4);
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, sacrifice.color());
+        Assertions.assertEquals(GameAnalyzer.Judgement.BLUNDER, sacrifice.judgement());
+        Assertions.assertTrue(sacrifice.bestScore() - sacrifice.score() >= GameAnalyzer.Judgement.BLUNDER.loss());
+
+        GameAnalyzer.MoveAnalysis recapture = analysis.get(5);
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, recapture.color());
+        Assertions.assertEquals(GameAnalyzer.Judgement.GOOD, recapture.judgement());
+        Assertions.assertEquals(recapture.move(), recapture.bestMove());
+    }
+
+    @Test
+    public void testScoresCheckmate() throws InvalidMoveException {
+        ChessGame game = play(new ChessGame(), "f2f3", "e7e5", "g2g4", "d8h4");
+        List<GameAnalyzer.MoveAnalysis> analysis =
+                new GameAnalyzer(SearchLimits.depth(4), new TranspositionTable(8)).analyze(game);
+
+        Assertions.assertEquals(GameAnalyzer.Judgement.BLUNDER, analysis.get(2).judgement());
+        Assertions.assertEquals(Search.MATE, analysis.get(3).score());
+        Assertions.assertEquals(GameAnalyzer.Judgement.GOOD, analysis.get(3).judgement());
+    }
+}
@@ -0,0 +1,77 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+public class OpeningBookTests {
+
+    private static ChessMove move(int startRow, int startColumn, int endRow, int endColumn) {
+        return new ChessMove(new ChessPosition(startRow, startColumn), new ChessPosition(endRow, endColumn), null);
+    }
+
+    @Test
+    public void testWriteAndProbe(@TempDir Path directory) throws IOException, InvalidMoveException {
+        ChessGame game = new ChessGame();
+        OpeningBook.Writer writer = new OpeningBook.Writer();
+        writer.add(game, move(2, 4, 4, 4), 1);
+        writer.add(game, move(2, 5, 4, 5), 2);
+        writer.add(game, move(2, 5, 4, 5), 1);
+        ChessGame afterE4 = new ChessGame();
+        afterE4.makeMove(move(2, 5, 4, 5));
+        writer.add(afterE4, move(7, 3, 5, 3), 5);
+        Path file = directory.resolve("book.bin");
+        writer.write(file);
+
+        OpeningBook book = OpeningBook.open(file);
+        Assertions.assertEquals(3, book.size());
+        Assertions.assertEquals(List.of(new OpeningBook.Candidate(move(2, 5, 4, 5), 3),
+                new OpeningBook.Candidate(move(2, 4, 4, 4), 1)), book.moves(game));
+        Assertions.assertEquals(move(7, 3, 5, 3), book.pick(afterE4, new Random(1)));
+
+        ChessGame outOfBook = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1");
+        Assertions.assertTrue(book.moves(outOfBook).isEmpty());
+        Assertions.assertNull(book.pick(outOfBook, new Random(1)));
+    }
+
+    @Test
+    public void testCastlingRoundTrip(@TempDir Path directory) throws IOException {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1");
+        OpeningBook.Writer writer = new OpeningBook.Writer();
+        writer.add(game, move(8, 5, 8, 3), 1);
+        Path file = directory.resolve("castle.bin");
+        writer.write(file);
+
+        Assertions.assertEquals(List.of(new OpeningBook.Candidate(move(8, 5, 8, 3), 1)),
+                OpeningBook.open(file).moves(game));
+    }
+
+    @Test
+    public void testCustomKeys(@TempDir Path directory) throws IOException {
+        ChessGame game = new ChessGame();
+        OpeningBook.Writer writer = new OpeningBook.Writer(ChessGame::getKey);
+        writer.add(game, move(2, 5, 4, 5), 1);
+        Path file = directory.resolve("custom.bin");
+        writer.write(file);
+
+        Assertions.assertEquals(List.of(new OpeningBook.Candidate(move(2, 5, 4, 5), 1)),
+                OpeningBook.open(file, ChessGame::getKey).moves(game));
+        Assertions.assertTrue(OpeningBook.open(file).moves(game).isEmpty());
+    }
+
+    @Test
+    public void testRejectsOtherFiles(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("not-a-book.bin");
+        java.nio.file.Files.write(file, new byte[15]);
+        Assertions.assertThrows(IOException.class, () -> OpeningBook.open(file));
+    }
+}
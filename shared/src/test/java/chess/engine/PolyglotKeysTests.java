@@ -0,0 +1,47 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PolyglotKeysTests {
+
+    private static ChessGame play(String... moves) throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String move : moves) {
+            game.makeMove(ChessMove.fromAlgebraicNotation(move));
+        }
+        return game;
+    }
+
+    /**
+     * The reference keys from the Polyglot book format specification
+     */
+    @Test
+    public void testReferenceKeys() throws InvalidMoveException {
+        Assertions.assertEquals(0x463b96181691fc9cL, PolyglotKeys.key(play()));
+        Assertions.assertEquals(0x823c9b50fd114196L, PolyglotKeys.key(play("e2e4")));
+        Assertions.assertEquals(0x0756b94461c50fb0L, PolyglotKeys.key(play("e2e4", "d7d5")));
+        Assertions.assertEquals(0x662fafb965db29d4L, PolyglotKeys.key(play("e2e4", "d7d5", "e4e5")));
+        // A pawn on e5 can take en passant on f6, so the column is hashed
+        Assertions.assertEquals(0x22a48b5a8e47ff78L, PolyglotKeys.key(play("e2e4", "d7d5", "e4e5", "f7f5")));
+        Assertions.assertEquals(0x652a607ca3f242c1L,
+                PolyglotKeys.key(play("e2e4", "d7d5", "e4e5", "f7f5", "e1e2")));
+        Assertions.assertEquals(0x00fdd303c946bdd9L,
+                PolyglotKeys.key(play("e2e4", "d7d5", "e4e5", "f7f5", "e1e2", "e8f7")));
+        Assertions.assertEquals(0x3c8123ea7b067637L,
+                PolyglotKeys.key(play("a2a4", "b7b5", "h2h4", "b5b4", "c2c4")));
+        Assertions.assertEquals(0x5c3f9b829b279560L,
+                PolyglotKeys.key(play("a2a4", "b7b5", "h2h4", "b5b4", "c2c4", "b4c3", "a1a3")));
+    }
+
+    @Test
+    public void testSetUpPositions() {
+        Assertions.assertEquals(0x463b96181691fc9cL, PolyglotKeys.key(ChessGame.fromFen(ChessGame.START_FEN)));
+        // An en passant square no pawn can take on is not hashed
+        Assertions.assertEquals(0x823c9b50fd114196L, PolyglotKeys.key(
+                ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1")));
+    }
+}
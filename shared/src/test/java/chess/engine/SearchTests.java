@@ -0,0 +1,125 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SearchTests {
+
+    @Test
+    public void testFindsMateInOne() {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = new Search(game, new TranspositionTable(1)).search(SearchLimits.depth(4));
+
+        Assertions.assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null),
+                result.bestMove());
+        Assertions.assertTrue(result.isMate());
+        Assertions.assertEquals(1, result.mateIn());
+    }
+
+    @Test
+    public void testFindsMateInTwo() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/1R6/R6K w - - 0 1");
+        SearchResult result = new Search(game, new TranspositionTable(1)).search(SearchLimits.depth(6));
+
+        Assertions.assertEquals(2, result.mateIn());
+        Assertions.assertEquals(3, result.principalVariation().size());
+        for (ChessMove move : result.principalVariation()) {
+            game.makeMove(move);
+        }
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    public void testTakesHangingQueen() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        SearchResult result = new Search(game, new TranspositionTable(1)).search(SearchLimits.depth(3));
+
+        Assertions.assertEquals(new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null),
+                result.bestMove());
+        Assertions.assertTrue(result.score() > 0);
+    }
+
+    @Test
+    public void testPrincipalVariationIsPlayable() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        String before = game.toFen();
+        SearchResult result = new Search(game, new TranspositionTable(1)).search(SearchLimits.depth(4));
+
+        Assertions.assertEquals(before, game.toFen());
+        Assertions.assertEquals(4, result.depth());
+        Assertions.assertEquals(result.bestMove(), result.principalVariation().get(0));
+        for (ChessMove move : result.principalVariation()) {
+            game.makeMove(move);
+        }
+    }
+
+    @Test
+    public void testStopsAtNodeLimit() {
+        ChessGame game = new ChessGame();
+        SearchResult result = new Search(game, new TranspositionTable(1)).search(SearchLimits.nodes(5000));
+
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertTrue(result.depth() >= 1 && result.depth() < SearchLimits.MAX_DEPTH);
+        // Limits are checked every so often, not at every node
+        Assertions.assertTrue(result.nodes() < 5000 + 1024, "visited " + result.nodes());
+    }
+
+    @Test
+    public void testStopOnlyEndsTheRunningSearch() {
+        Search search = new Search(new ChessGame(), new TranspositionTable(1));
+        search.stop();
+        Assertions.assertEquals(4, search.search(SearchLimits.depth(4)).depth());
+        Assertions.assertEquals(4, search.search(SearchLimits.depth(4)).depth());
+    }
+
+    @Test
+    public void testNoMoveWhenCheckmated() {
+        ChessGame game = ChessGame.fromFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        SearchResult result = new Search(game, new TranspositionTable(1)).search(SearchLimits.depth(3));
+
+        Assertions.assertNull(result.bestMove());
+        Assertions.assertEquals(-Search.MATE, result.score());
+        Assertions.assertTrue(result.principalVariation().isEmpty());
+    }
+
+    @Test
+    public void testParallelSearchFindsMate() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/1R6/R6K w - - 0 1");
+        SearchResult result = new ParallelSearch(game, 4, new TranspositionTable(4)).search(SearchLimits.depth(6));
+
+        Assertions.assertEquals(2, result.mateIn());
+        for (ChessMove move : result.principalVariation()) {
+            game.makeMove(move);
+        }
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    public void testParallelSearchAgreesOnCapture() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        SearchResult single = new Search(game, new TranspositionTable(1)).search(SearchLimits.depth(5));
+        SearchResult parallel = new ParallelSearch(game, 3, new TranspositionTable(1)).search(SearchLimits.depth(5));
+
+        Assertions.assertEquals(single.bestMove(), parallel.bestMove());
+        Assertions.assertEquals(5, parallel.depth());
+    }
+
+    @Test
+    public void testParallelStopOnlyEndsTheRunningSearch() {
+        ParallelSearch search = new ParallelSearch(new ChessGame(), 2, new TranspositionTable(1));
+        search.stop();
+        Assertions.assertEquals(4, search.search(SearchLimits.depth(4)).depth());
+        Assertions.assertEquals(4, search.search(SearchLimits.depth(4)).depth());
+    }
+
+    @Test
+    public void testInvalidLimits() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SearchLimits.depth(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SearchLimits.nodes(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ParallelSearch(new ChessGame(), 0, new TranspositionTable(1)));
+    }
+}
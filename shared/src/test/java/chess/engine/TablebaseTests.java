@@ -0,0 +1,83 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class TablebaseTests {
+
+    @TempDir
+    static Path directory;
+    static Tablebase tablebase;
+
+    @BeforeAll
+    public static void generate() throws IOException {
+        TablebaseGenerator.write(directory, Tablebase.Endgame.KQK, Tablebase.Endgame.KRK, Tablebase.Endgame.KPK);
+        tablebase = Tablebase.open(directory);
+    }
+
+    private static int longestMate(Tablebase.Endgame endgame) {
+        byte[] values = TablebaseGenerator.generate(endgame);
+        int longest = 0;
+        // Even indexes have the stronger side to move
+        for (int index = 0; index < values.length; index += 2) {
+            int value = values[index] & 0xFF;
+            if (value != Tablebase.ILLEGAL) {
+                longest = Math.max(longest, value - 1);
+            }
+        }
+        return longest;
+    }
+
+    @Test
+    public void testLongestMates() {
+        // Known results: mate in 10 with a queen and 16 with a rook, at most
+        Assertions.assertEquals(19, longestMate(Tablebase.Endgame.KQK));
+        Assertions.assertEquals(31, longestMate(Tablebase.Endgame.KRK));
+    }
+
+    @Test
+    public void testProbe() {
+        Assertions.assertTrue(tablebase.covers(Tablebase.Endgame.KQK));
+        Assertions.assertFalse(tablebase.covers(Tablebase.Endgame.KBNK));
+
+        // Mate in one
+        Assertions.assertEquals(Search.MATE - 1, tablebase.probe(ChessGame.fromFen("6k1/8/6K1/8/8/8/8/Q7 w - - 0 1")));
+        // Checkmated
+        Assertions.assertEquals(-Search.MATE, tablebase.probe(ChessGame.fromFen("Q5k1/8/6K1/8/8/8/8/8 b - - 0 1")));
+        // The king in front of its pawn on the sixth row wins, but not if the other side is stalemated
+        Assertions.assertTrue(tablebase.probe(ChessGame.fromFen("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1")) > 0);
+        Assertions.assertEquals(0, tablebase.probe(ChessGame.fromFen("4k3/4P3/4K3/8/8/8/8/8 b - - 0 1")));
+        // Too little to mate with, and positions not covered
+        Assertions.assertEquals(0, tablebase.probe(ChessGame.fromFen("4k3/8/8/8/8/8/8/3NK3 w - - 0 1")));
+        Assertions.assertEquals(Tablebase.NOT_FOUND, tablebase.probe(ChessGame.fromFen("4k3/8/8/8/8/8/8/2BNK3 w - - 0 1")));
+        Assertions.assertEquals(Tablebase.NOT_FOUND, tablebase.probe(new ChessGame()));
+    }
+
+    @Test
+    public void testBlackIsFlipped() {
+        int white = tablebase.probe(ChessGame.fromFen("8/8/8/3k4/8/8/2P5/K7 b - - 0 1"));
+        int black = tablebase.probe(ChessGame.fromFen("k7/2p5/8/8/3K4/8/8/8 w - - 0 1"));
+        Assertions.assertNotEquals(Tablebase.NOT_FOUND, white);
+        Assertions.assertEquals(white, black);
+    }
+
+    @Test
+    public void testBestMovesMate() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("8/8/8/4k3/8/8/8/R3K3 w - - 0 1");
+        int plies = Search.MATE - tablebase.probe(game);
+        for (int i = 0; i < plies; i++) {
+            ChessMove move = tablebase.bestMove(game);
+            Assertions.assertNotNull(move);
+            game.makeMove(move);
+        }
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+}
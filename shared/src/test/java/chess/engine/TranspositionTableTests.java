@@ -0,0 +1,64 @@
+package chess.engine;
+
+import chess.Move;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TranspositionTableTests {
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x1234_5678_9ABC_DEF0L;
+        int move = Move.of(12, 28);
+        table.store(key, 7, TranspositionTable.LOWER, -29990, move);
+
+        long entry = table.probe(key);
+        Assertions.assertNotEquals(0, entry);
+        Assertions.assertEquals(move, TranspositionTable.move(entry));
+        Assertions.assertEquals(-29990, TranspositionTable.score(entry));
+        Assertions.assertEquals(7, TranspositionTable.depth(entry));
+        Assertions.assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+
+        // Same slot, different position
+        Assertions.assertEquals(0, table.probe(key ^ (1L << 62)));
+        table.clear();
+        Assertions.assertEquals(0, table.probe(key));
+    }
+
+    @Test
+    public void testKeepsDeeperEntry() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 42;
+        int move = Move.of(1, 18);
+        table.store(key, 9, TranspositionTable.EXACT, 15, move);
+        table.store(key, 3, TranspositionTable.UPPER, -40, Move.NONE);
+        Assertions.assertEquals(9, TranspositionTable.depth(table.probe(key)));
+
+        table.store(key, 4, TranspositionTable.EXACT, 20, Move.NONE);
+        long entry = table.probe(key);
+        Assertions.assertEquals(4, TranspositionTable.depth(entry));
+        Assertions.assertEquals(move, TranspositionTable.move(entry));
+    }
+
+    @Test
+    public void testReplacesShallowAndOldEntriesFirst() {
+        TranspositionTable table = new TranspositionTable(1);
+        // Keys that differ only in their high bits share a bucket
+        long[] keys = new long[5];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 7 | (long) i << 40;
+        }
+        for (int i = 0; i < 4; i++) {
+            table.store(keys[i], 10 - i * 2, TranspositionTable.EXACT, 0, Move.NONE);
+        }
+
+        table.newSearch();
+        table.store(keys[4], 1, TranspositionTable.EXACT, 0, Move.NONE);
+        Assertions.assertEquals(0, table.probe(keys[3]));
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertNotEquals(0, table.probe(keys[i]));
+        }
+        Assertions.assertNotEquals(0, table.probe(keys[4]));
+    }
+}